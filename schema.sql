@@ -1,3 +1,8 @@
+--EXTENSIONS
+
+--Trigram indexes for the substring search of entries
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 --TABLES
 
 CREATE TABLE roles (
@@ -17,16 +22,24 @@ CREATE TABLE users (
 
 CREATE UNIQUE INDEX users_unique_idx ON users (lower(name));
 
+--Used by the login: name = ?. The unique index above is not able to serve it
+CREATE INDEX IF NOT EXISTS users_name_idx ON users (name);
+
 CREATE TABLE users_roles (
     role_id integer NOT NULL,
     user_id integer NOT NULL,
     CONSTRAINT users_roles_pk PRIMARY KEY (role_id, user_id)
 );
 
+--Used by the roles of a user and by the foreign key check on delete of a user
+CREATE INDEX IF NOT EXISTS users_roles_user_idx ON users_roles (user_id, role_id);
+
 CREATE TABLE groups (
     id integer NOT NULL,
     user_id integer NOT NULL,
     name character varying(255) NOT NULL,
+    updated_at timestamp with time zone DEFAULT now() NOT NULL,
+    change_txid bigint DEFAULT txid_current() NOT NULL,
     CONSTRAINT groups_pk PRIMARY KEY (id)
 );
 
@@ -43,9 +56,54 @@ CREATE TABLE entries (
     phone character varying(50),
     description character varying(1000),
     expired_date date,
+    updated_at timestamp with time zone DEFAULT now() NOT NULL,
+    change_txid bigint DEFAULT txid_current() NOT NULL,
     CONSTRAINT entries_pk PRIMARY KEY (id)
 );
 
+--Used by the case insensitive substring search: lower(column) like '%value%'
+CREATE INDEX IF NOT EXISTS entries_name_trgm_idx ON entries USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS entries_login_trgm_idx ON entries USING gin (lower(login) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS entries_email_trgm_idx ON entries USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS entries_description_trgm_idx ON entries USING gin (lower(description) gin_trgm_ops);
+
+--Used by the keyset pagination: order by lower(name) collate "C", id.
+--The names are sorted by code points, the same way as by the application.
+CREATE INDEX IF NOT EXISTS entries_user_name_id_idx ON entries (user_id, (lower(name)) COLLATE "C", id);
+
+--Used by the search in a group and in the empty group: group_id = ? or group_id is null
+CREATE INDEX IF NOT EXISTS entries_user_group_name_id_idx ON entries (user_id, group_id, (lower(name)) COLLATE "C", id);
+
+--Used by the foreign key check on delete of a group
+CREATE INDEX IF NOT EXISTS entries_group_idx ON entries (group_id);
+
+--Partial index for the scan of expiring entries
+CREATE INDEX IF NOT EXISTS entries_expired_date_idx ON entries (expired_date, id) WHERE expired_date IS NOT NULL;
+
+--Ids of deleted entries and groups. Filled by the change tracking triggers
+CREATE TABLE tombstones (
+    table_name character varying(30) NOT NULL,
+    record_id integer NOT NULL,
+    user_id integer NOT NULL,
+    deleted_at timestamp with time zone DEFAULT now() NOT NULL,
+    change_txid bigint DEFAULT txid_current() NOT NULL
+);
+
+--The highest change_txid of the removed tombstones. A sync token not above it may miss deletions
+CREATE TABLE tombstones_horizon (
+    change_txid bigint NOT NULL
+);
+
+INSERT INTO tombstones_horizon (change_txid) VALUES (0);
+
+--Used by the change feed: change_txid >= :since
+CREATE INDEX IF NOT EXISTS entries_user_change_idx ON entries (user_id, change_txid);
+CREATE INDEX IF NOT EXISTS groups_user_change_idx ON groups (user_id, change_txid);
+CREATE INDEX IF NOT EXISTS tombstones_user_change_idx ON tombstones (user_id, change_txid);
+
+--Used by the removal of old tombstones
+CREATE INDEX IF NOT EXISTS tombstones_deleted_idx ON tombstones (deleted_at);
+
 --FOREIGN KEYS
 
 ALTER TABLE users_roles
@@ -65,23 +123,60 @@ ALTER TABLE entries
 
 --SEQUENCES
 
+--The increment must be equal to the allocationSize of the entity id generators.
+--Hibernate uses the pooled-lo optimizer: one nextval call allocates 50 ids.
+
 CREATE SEQUENCE users_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
 
 CREATE SEQUENCE groups_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
 
 CREATE SEQUENCE entries_seq
     START WITH 1
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
+
+--CHANGE TRACKING
+
+--The triggers see every change, including bulk updates and deletes which bypass the JPA entity callbacks.
+--now() is the start time of the transaction. txid_current() is the id of the transaction: every
+--transaction which has finished before a snapshot has an id below txid_snapshot_xmin of the snapshot.
+
+CREATE FUNCTION set_updated_at() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := now();
+    NEW.change_txid := txid_current();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION add_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO tombstones (table_name, record_id, user_id, change_txid)
+        VALUES (TG_TABLE_NAME, OLD.id, OLD.user_id, txid_current());
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER entries_updated_at BEFORE INSERT OR UPDATE ON entries
+    FOR EACH ROW EXECUTE PROCEDURE set_updated_at();
+
+CREATE TRIGGER groups_updated_at BEFORE INSERT OR UPDATE ON groups
+    FOR EACH ROW EXECUTE PROCEDURE set_updated_at();
+
+CREATE TRIGGER entries_tombstone AFTER DELETE ON entries
+    FOR EACH ROW EXECUTE PROCEDURE add_tombstone();
+
+CREATE TRIGGER groups_tombstone AFTER DELETE ON groups
+    FOR EACH ROW EXECUTE PROCEDURE add_tombstone();
@@ -0,0 +1,73 @@
+package mknv.psm.server.model.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Measures the serialization of entry lists to JSON by an object mapper
+ * configured as the one of Spring MVC. Compares entities with the list views
+ * returned by the search.
+ *
+ * @author mknv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EntrySerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<Entry> entries;
+    private List<EntryListItem> listItems;
+
+    @Setup
+    public void setUp() {
+        User user = new User(1, "user", "password");
+        Group group = new Group(1, "group", user);
+        LocalDate today = LocalDate.now();
+        entries = new ArrayList<>(size);
+        listItems = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Entry entry = new Entry("entry" + i, user);
+            entry.setId(i);
+            entry.setLogin("login" + i);
+            entry.setEmail("user" + i + "@example.com");
+            entry.setPhone("+1 555 010" + (i % 100));
+            entry.setDescription("The description of the entry " + i);
+            entry.setGroup(group);
+            //Every third entry expires
+            entry.setExpiredDate(i % 3 == 0 ? today.plusDays(i % 100) : null);
+            entries.add(entry);
+            listItems.add(EntryListItem.of(entry));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeEntries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entries);
+    }
+
+    @Benchmark
+    public byte[] serializeListItems() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(listItems);
+    }
+}
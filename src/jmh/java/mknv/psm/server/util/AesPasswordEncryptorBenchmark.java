@@ -0,0 +1,62 @@
+package mknv.psm.server.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.encrypt.Encryptors;
+
+/**
+ * Compares the cached key encryptor with creating a new
+ * {@code Encryptors.delux} encryptor on every call.
+ *
+ * @author mknv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AesPasswordEncryptorBenchmark {
+
+    private static final String KEY = "secretkey";
+    private static final String SALT = "1234";
+
+    private AesPasswordEncryptor encryptor;
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        encryptor = new AesPasswordEncryptor();
+        encryptor.setKey(KEY);
+        encryptor.setSalt(SALT);
+        encryptor.init();
+        encrypted = encryptor.encrypt("password");
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptor.encrypt("password");
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptor.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public String encryptWithNewDeluxEncryptor() {
+        return Encryptors.delux(KEY, SALT).encrypt("password");
+    }
+
+    @Benchmark
+    public String decryptWithNewDeluxEncryptor() {
+        return Encryptors.delux(KEY, SALT).decrypt(encrypted);
+    }
+}
@@ -0,0 +1,39 @@
+package mknv.psm.server.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the password generator for the lengths and types offered by the
+ * entry form.
+ *
+ * @author mknv
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SimplePasswordGeneratorBenchmark {
+
+    @Param({"8", "16", "32", "100"})
+    private int length;
+
+    @Param({"SIMPLE", "COMPLEX"})
+    private PasswordType passwordType;
+
+    private final SimplePasswordGenerator generator = new SimplePasswordGenerator();
+
+    @Benchmark
+    public String generate() {
+        return generator.generate(length, passwordType);
+    }
+}
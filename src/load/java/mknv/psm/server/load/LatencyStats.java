@@ -0,0 +1,57 @@
+package mknv.psm.server.load;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one operation recorded by one thread. The statistics of all
+ * threads are merged after the run.
+ *
+ * @author mknv
+ */
+public class LatencyStats {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private int errors;
+
+    public void record(long latencyNanos, boolean ok) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+        if (!ok) {
+            errors++;
+        }
+    }
+
+    public void merge(LatencyStats other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.nanos[i], true);
+        }
+        errors += other.errors;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Retrieves the latency at the percentile by the nearest rank method.
+     *
+     * @param percentile a percentile from 0 to 100
+     * @return a latency in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,224 @@
+package mknv.psm.server.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * A minimal https client of one user. Keeps the session cookie and the csrf
+ * token of the web pages and the bearer token of the REST API. Trusts the
+ * self-signed certificate of the test server.
+ *
+ * @author mknv
+ */
+public class LoadClient {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final SSLSocketFactory socketFactory = trustAllSocketFactory();
+
+    private final String baseUrl;
+    private String sessionCookie;
+    private String csrfToken;
+    private String bearerToken;
+
+    /**
+     * A status and a body of a response.
+     */
+    public static class Response {
+
+        private final int status;
+        private final byte[] body;
+
+        Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public boolean isOk() {
+            return status >= 200 && status < 400;
+        }
+
+        public JsonNode json() throws IOException {
+            return objectMapper.readTree(body);
+        }
+    }
+
+    public LoadClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Logs in by the login form and gets a token of the REST API.
+     *
+     * @param username a user name
+     * @param password a password
+     * @throws IOException if the login fails
+     */
+    public void login(String username, String password) throws IOException {
+        refreshCsrfToken();
+        Response response = post("/login", form("username", username, "password", password));
+        if (response.getStatus() != 302) {
+            throw new IOException("Login of " + username + " failed with status " + response.getStatus());
+        }
+        //The session and the csrf token are changed after the login
+        refreshCsrfToken();
+        String basic = Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        Response token = send("POST", "/api/token", null, "Basic " + basic);
+        if (!token.isOk()) {
+            throw new IOException("Token of " + username + " failed with status " + token.getStatus());
+        }
+        bearerToken = token.json().get("token").asText();
+    }
+
+    /**
+     * Sends a request of the REST API with the bearer token.
+     *
+     * @param path a path with a query string
+     * @return a response
+     * @throws IOException if an I/O error occurs
+     */
+    public Response api(String path) throws IOException {
+        return send("GET", path, null, "Bearer " + bearerToken);
+    }
+
+    /**
+     * Posts a form with the session cookie and the csrf token. Redirects are
+     * not followed.
+     *
+     * @param path a path
+     * @param form an encoded form
+     * @return a response
+     * @throws IOException if an I/O error occurs
+     */
+    public Response post(String path, String form) throws IOException {
+        return send("POST", path, form + "&_csrf=" + encode(csrfToken), null);
+    }
+
+    /**
+     * Encodes the pairs of names and values as a form.
+     *
+     * @param namesAndValues names and values
+     * @return an encoded form
+     */
+    public static String form(Object... namesAndValues) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (result.length() > 0) {
+                result.append('&');
+            }
+            result.append(namesAndValues[i]).append('=').append(encode(String.valueOf(namesAndValues[i + 1])));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Encodes the parameters as a query string.
+     *
+     * @param parameters parameters
+     * @return a query string
+     */
+    public static String query(Map<String, Object> parameters) {
+        return parameters.entrySet().stream()
+                .map(p -> p.getKey() + "=" + encode(String.valueOf(p.getValue())))
+                .collect(Collectors.joining("&"));
+    }
+
+    private void refreshCsrfToken() throws IOException {
+        Response response = send("GET", "/rest/csrf", null, null);
+        csrfToken = response.json().get("token").asText();
+    }
+
+    private Response send(String method, String path, String form, String authorization) throws IOException {
+        HttpsURLConnection connection = (HttpsURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setSSLSocketFactory(socketFactory);
+        connection.setHostnameVerifier((host, session) -> true);
+        connection.setInstanceFollowRedirects(false);
+        connection.setRequestMethod(method);
+        if (sessionCookie != null) {
+            connection.setRequestProperty("Cookie", sessionCookie);
+        }
+        if (authorization != null) {
+            connection.setRequestProperty("Authorization", authorization);
+        }
+        if (form != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(form.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        String setCookie = connection.getHeaderField("Set-Cookie");
+        if (setCookie != null && setCookie.startsWith("JSESSIONID=")) {
+            sessionCookie = setCookie.substring(0, setCookie.indexOf(';'));
+        }
+        //The body is read to the end, so the connection is kept alive
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream input = in) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = input.read(buffer)) != -1) {
+                    body.write(buffer, 0, n);
+                }
+            }
+        }
+        return new Response(status, body.toByteArray());
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SSLSocketFactory trustAllSocketFactory() {
+        TrustManager trustAll = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[]{trustAll}, null);
+            return context.getSocketFactory();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create a ssl context.", e);
+        }
+    }
+}
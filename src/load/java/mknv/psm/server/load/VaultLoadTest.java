@@ -0,0 +1,279 @@
+package mknv.psm.server.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.util.PasswordEncryptor;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Boots the application on a random https port against the test database,
+ * seeds users with groups and entries and drives the REST API and the entry
+ * form from concurrent clients. Reports p50 and p99 latencies and the
+ * throughput of every operation and writes them to target/load-result.json.
+ *
+ * The size of the run is set by system properties: load.users, load.groups,
+ * load.entries (per user), load.threads, load.warmup and load.duration (in
+ * seconds). Run: mvn -P dev,load test
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "server.ssl.key-store=classpath:keystore.p12",
+    "server.ssl.key-store-password=changeit",
+    "server.ssl.key-password=changeit",
+    "server.ssl.key-alias=tomcat",
+    "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+public class VaultLoadTest {
+
+    private static final String[] WORDS = {"mail", "bank", "shop", "work", "game", "cloud", "forum", "news"};
+    private static final String PASSWORD = "password";
+
+    private final int users = Integer.getInteger("load.users", 10);
+    private final int groups = Integer.getInteger("load.groups", 5);
+    private final int entries = Integer.getInteger("load.entries", 1000);
+    private final int threads = Integer.getInteger("load.threads", 16);
+    private final int warmupSeconds = Integer.getInteger("load.warmup", 10);
+    private final int durationSeconds = Integer.getInteger("load.duration", 30);
+
+    /**
+     * An operation and its share of the requests in percent.
+     */
+    private enum Operation {
+        FIND_ENTRIES(40), LIST_GROUPS(20), GET_PASSWORD(30), SAVE_ENTRY(10);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        static Operation random() {
+            int value = ThreadLocalRandom.current().nextInt(100);
+            for (Operation operation : values()) {
+                value -= operation.weight;
+                if (value < 0) {
+                    return operation;
+                }
+            }
+            return FIND_ENTRIES;
+        }
+    }
+
+    /**
+     * A seeded user with the ids of the groups and entries.
+     */
+    private static class SeededUser {
+
+        private final String name;
+        private final List<Integer> groupIds = new ArrayList<>();
+        private final List<Integer> entryIds = new ArrayList<>();
+
+        SeededUser(String name) {
+            this.name = name;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private PasswordEncryptor passwordEncryptor;
+
+    private final List<SeededUser> seededUsers = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        long start = System.currentTimeMillis();
+        Role role = roleRepository.save(new Role(1, "user"));
+        for (int u = 0; u < users; u++) {
+            User user = new User("load" + u, PASSWORD);
+            user.getRoles().add(role);
+            userRepository.save(user);
+            SeededUser seededUser = new SeededUser(user.getName());
+            List<Group> userGroups = new ArrayList<>();
+            for (int g = 0; g < groups; g++) {
+                userGroups.add(new Group(WORDS[g % WORDS.length] + " " + g, user));
+            }
+            groupRepository.saveAll(userGroups).forEach(g -> seededUser.groupIds.add(g.getId()));
+            List<Entry> userEntries = new ArrayList<>();
+            for (int e = 0; e < entries; e++) {
+                Entry entry = new Entry(WORDS[e % WORDS.length] + " " + e, user);
+                entry.setLogin("login" + e);
+                entry.setEmail("user" + e + "@example.com");
+                entry.setPassword(passwordEncryptor.encrypt("secret" + e));
+                entry.setGroup(userGroups.isEmpty() ? null : userGroups.get(e % userGroups.size()));
+                userEntries.add(entry);
+            }
+            entryRepository.saveAll(userEntries).forEach(e -> seededUser.entryIds.add(e.getId()));
+            seededUsers.add(seededUser);
+        }
+        System.out.printf("Seeded %d users with %d groups and %d entries each in %d ms%n",
+                users, groups, entries, System.currentTimeMillis() - start);
+    }
+
+    @Test
+    public void load() throws Exception {
+        String baseUrl = "https://localhost:" + port + "/psm";
+        List<LoadClient> clients = new ArrayList<>();
+        List<SeededUser> clientUsers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SeededUser user = seededUsers.get(t % seededUsers.size());
+            LoadClient client = new LoadClient(baseUrl);
+            client.login(user.name, PASSWORD);
+            clients.add(client);
+            clientUsers.add(user);
+        }
+
+        run(clients, clientUsers, warmupSeconds);
+        long start = System.nanoTime();
+        List<Map<Operation, LatencyStats>> results = run(clients, clientUsers, durationSeconds);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, LatencyStats> merged = new LinkedHashMap<>();
+        LatencyStats total = new LatencyStats();
+        for (Operation operation : Operation.values()) {
+            LatencyStats stats = new LatencyStats();
+            results.forEach(r -> stats.merge(r.get(operation)));
+            total.merge(stats);
+            merged.put(operation.name(), stats);
+        }
+        merged.put("TOTAL", total);
+        report(merged, seconds);
+        assertEquals("Requests failed", 0, total.getErrors());
+    }
+
+    private List<Map<Operation, LatencyStats>> run(List<LoadClient> clients, List<SeededUser> clientUsers,
+            int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(clients.size());
+        try {
+            List<Future<Map<Operation, LatencyStats>>> futures = new ArrayList<>();
+            for (int t = 0; t < clients.size(); t++) {
+                LoadClient client = clients.get(t);
+                SeededUser user = clientUsers.get(t);
+                futures.add(executor.submit(() -> {
+                    Map<Operation, LatencyStats> stats = new LinkedHashMap<>();
+                    for (Operation operation : Operation.values()) {
+                        stats.put(operation, new LatencyStats());
+                    }
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = Operation.random();
+                        long start = System.nanoTime();
+                        boolean ok = execute(client, user, operation);
+                        stats.get(operation).record(System.nanoTime() - start, ok);
+                    }
+                    return stats;
+                }));
+            }
+            List<Map<Operation, LatencyStats>> results = new ArrayList<>();
+            for (Future<Map<Operation, LatencyStats>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private boolean execute(LoadClient client, SeededUser user, Operation operation) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case FIND_ENTRIES:
+                Map<String, Object> parameters = new LinkedHashMap<>();
+                parameters.put("name", WORDS[random.nextInt(WORDS.length)]);
+                parameters.put("group", "all");
+                parameters.put("limit", 100);
+                return client.api("/api/entries?" + LoadClient.query(parameters)).isOk();
+            case LIST_GROUPS:
+                return client.api("/api/groups").isOk();
+            case GET_PASSWORD:
+                return client.api("/api/entries/getpassword/" + randomItem(user.entryIds)).isOk();
+            case SAVE_ENTRY:
+                int index = random.nextInt(user.entryIds.size());
+                LoadClient.Response response = client.post("/entries/save", LoadClient.form(
+                        "id", user.entryIds.get(index),
+                        "name", WORDS[index % WORDS.length] + " " + index,
+                        "login", "login" + index,
+                        "email", "user" + index + "@example.com",
+                        "password", "secret" + random.nextInt(),
+                        "group", user.groupIds.isEmpty() ? "" : randomItem(user.groupIds)));
+                //The entry form redirects to the list after a successful save
+                return response.getStatus() == 302;
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private static Integer randomItem(List<Integer> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private void report(Map<String, LatencyStats> stats, double seconds) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        System.out.printf("%n%-14s %9s %7s %10s %10s %10s%n", "Operation", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms");
+        for (Map.Entry<String, LatencyStats> entry : stats.entrySet()) {
+            LatencyStats s = entry.getValue();
+            double throughput = s.getCount() / seconds;
+            System.out.printf("%-14s %9d %7d %10.1f %10.2f %10.2f%n", entry.getKey(), s.getCount(), s.getErrors(),
+                    throughput, s.percentileMillis(50), s.percentileMillis(99));
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("operation", entry.getKey());
+            row.put("requests", s.getCount());
+            row.put("errors", s.getErrors());
+            row.put("throughput", throughput);
+            row.put("p50", s.percentileMillis(50));
+            row.put("p99", s.percentileMillis(99));
+            rows.add(row);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("users", users);
+        result.put("groups", groups);
+        result.put("entries", entries);
+        result.put("threads", threads);
+        result.put("seconds", seconds);
+        result.put("operations", rows);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(new File("target/load-result.json"), result);
+    }
+}
@@ -0,0 +1,132 @@
+package mknv.psm.server;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+/**
+ * Sends read-only transactions which ask for it to a read replica. The replica
+ * lags behind the primary database, so the reads which fill the caches or
+ * return a version go to the primary one. Enabled if the
+ * spring.datasource.replica.url property is set. The replica username and
+ * password default to the ones of the primary database. The pool settings are
+ * taken from spring.datasource.hikari and spring.datasource.replica.hikari.
+ *
+ * @author mknv
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "url")
+public class ReplicaDataSourceConfiguration {
+
+    private static final Object REPLICA_HINT = new Object();
+
+    /**
+     * Sends the rest of the current read-only transaction to the replica, if
+     * it is configured. Must be called before the first statement of the
+     * transaction, the statements of a connection already taken are not
+     * moved. Does nothing outside of a transaction.
+     */
+    public static void useReplica() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_HINT)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_HINT, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_HINT);
+            }
+        });
+    }
+
+    /**
+     * Chooses the replica if the current transaction is read-only and has
+     * asked for the replica.
+     */
+    static class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+        private static final String PRIMARY = "primary";
+        private static final String REPLICA = "replica";
+
+        private final HikariDataSource primary;
+        private final HikariDataSource replica;
+
+        ReadOnlyRoutingDataSource(HikariDataSource primary, HikariDataSource replica) {
+            this.primary = primary;
+            this.replica = replica;
+            Map<Object, Object> targets = new HashMap<>();
+            targets.put(PRIMARY, primary);
+            targets.put(REPLICA, replica);
+            setTargetDataSources(targets);
+            setDefaultTargetDataSource(primary);
+        }
+
+        HikariDataSource getPrimary() {
+            return primary;
+        }
+
+        HikariDataSource getReplica() {
+            return replica;
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    && TransactionSynchronizationManager.hasResource(REPLICA_HINT) ? REPLICA : PRIMARY;
+        }
+    }
+
+    //Not an autowire candidate, so the properties of the primary database are still injected by type
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * The data source used by JPA. The pools are not beans, otherwise the
+     * data source initializer of Spring Boot would take them as the
+     * application data source. The lazy proxy postpones getting a real
+     * connection until the first statement, when the read-only flag of the
+     * transaction is already known.
+     *
+     * @param properties the properties of the primary database
+     * @param environment the environment the pool settings are bound from
+     * @return a routing data source
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment) {
+        DataSourceProperties replicaProperties = replicaDataSourceProperties();
+        if (!StringUtils.hasText(replicaProperties.getUsername())) {
+            replicaProperties.setUsername(properties.getUsername());
+            replicaProperties.setPassword(properties.getPassword());
+        }
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        HikariDataSource replica = replicaProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+
+        ReadOnlyRoutingDataSource routingDataSource = new ReadOnlyRoutingDataSource(primary, replica);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
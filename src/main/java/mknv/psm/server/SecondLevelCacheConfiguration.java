@@ -0,0 +1,56 @@
+package mknv.psm.server;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the regions of the Hibernate second-level cache in a local Caffeine
+ * JCache manager. Every region is bounded by size. The update timestamps
+ * region is not bounded, it has one element per table.
+ *
+ * @author mknv
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        //The managers are shared by uri, every application context needs its own one
+        URI uri = URI.create("psm-hibernate-" + UUID.randomUUID());
+        CacheManager cacheManager = provider.getCacheManager(uri, getClass().getClassLoader());
+        cacheManager.createCache(Role.class.getName(), configuration(100));
+        cacheManager.createCache(Group.class.getName(), configuration(10000));
+        cacheManager.createCache(User.class.getName() + ".roles", configuration(10000));
+        cacheManager.createCache(QUERY_RESULTS_REGION, configuration(10000));
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(long maximumSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        return configuration;
+    }
+}
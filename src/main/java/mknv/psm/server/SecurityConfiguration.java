@@ -7,8 +7,11 @@ import org.springframework.security.config.annotation.authentication.builders.Au
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import mknv.psm.server.web.auth.ApiTokenAuthenticationFilter;
+import mknv.psm.server.web.auth.ApiTokenService;
 import mknv.psm.server.web.auth.CustomAuthenticationProvider;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 /**
  *
@@ -33,6 +36,7 @@ public class SecurityConfiguration {
             http.authorizeRequests()
                     .antMatchers("/css/**", "/images/**", "/js/**").permitAll()
                     .antMatchers("/users/**").hasAuthority("admin")
+                    .antMatchers("/rest/statistics/**").hasAuthority("admin")
                     .antMatchers("/rest/csrf").permitAll()
                     .anyRequest().hasAnyAuthority("admin", "user")
                     .and()
@@ -57,6 +61,8 @@ public class SecurityConfiguration {
 
         @Autowired
         private CustomAuthenticationProvider authenticationProvider;
+        @Autowired
+        private ApiTokenService apiTokenService;
 
         @Override
         protected void configure(AuthenticationManagerBuilder auth) throws Exception {
@@ -67,6 +73,7 @@ public class SecurityConfiguration {
         protected void configure(HttpSecurity http) throws Exception {
             http.antMatcher("/api/**")
                     .authorizeRequests()
+                    .antMatchers("/api/statistics/**").hasAuthority("admin")
                     .anyRequest().hasAnyAuthority("admin", "user")
                     .and()
                     .csrf().disable()
@@ -74,7 +81,10 @@ public class SecurityConfiguration {
                     .and()
                     .requiresChannel().anyRequest().requiresSecure()
                     .and()
-                    .httpBasic();
+                    .httpBasic()
+                    .and()
+                    //A client may exchange the basic credentials for a token at /api/token
+                    .addFilterBefore(new ApiTokenAuthenticationFilter(apiTokenService), BasicAuthenticationFilter.class);
         }
     }
 }
@@ -0,0 +1,33 @@
+package mknv.psm.server;
+
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the sql functions used by the criteria queries.
+ *
+ * @author mknv
+ */
+@Configuration
+public class SqlFunctionConfiguration {
+
+    /**
+     * The lowercase value compared in the "C" collation, that is by code
+     * points. The sort order of entries does not depend on the collation of
+     * the database and is the same as of the cached entries. The indexes of the
+     * keyset pagination are built on this expression.
+     */
+    public static final String COLLATED_LOWER = "collated_lower";
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlFunctionCustomizer() {
+        MetadataBuilderContributor contributor = metadataBuilder -> metadataBuilder.applySqlFunction(COLLATED_LOWER,
+                new SQLFunctionTemplate(StandardBasicTypes.STRING, "lower(?1) collate \"C\""));
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.METADATA_BUILDER_CONTRIBUTOR, contributor);
+    }
+}
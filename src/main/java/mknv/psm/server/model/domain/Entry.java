@@ -6,6 +6,8 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import javax.persistence.Column;
+import javax.persistence.ColumnResult;
+import javax.persistence.ConstructorResult;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
@@ -14,6 +16,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.SequenceGenerator;
+import javax.persistence.SqlResultSetMapping;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.validation.constraints.NotBlank;
@@ -25,13 +28,24 @@ import javax.validation.constraints.Size;
  */
 @Entity
 @Table(name = "entries")
+//Maps the columns of a native query to an entry view, in the order of the EntryListItem constructor
+@SqlResultSetMapping(name = "EntryListItem", classes = @ConstructorResult(targetClass = EntryListItem.class,
+        columns = {
+            @ColumnResult(name = "id", type = Integer.class),
+            @ColumnResult(name = "name"),
+            @ColumnResult(name = "login"),
+            @ColumnResult(name = "email"),
+            @ColumnResult(name = "phone"),
+            @ColumnResult(name = "description"),
+            @ColumnResult(name = "group_id", type = Integer.class),
+            @ColumnResult(name = "expired_date", type = LocalDate.class)}))
 public class Entry implements Serializable {
 
     private static final long serialVersionUID = -4909528805600683351L;
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entries_seq")
-    @SequenceGenerator(name = "entries_seq", sequenceName = "entries_seq", allocationSize = 1)
+    @SequenceGenerator(name = "entries_seq", sequenceName = "entries_seq", allocationSize = 50)
     @Column
     private Integer id;
 
@@ -0,0 +1,120 @@
+package mknv.psm.server.model.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+
+/**
+ * A read-only view of an entry used in lists. Has no password and is selected
+ * by a constructor expression, so it is never managed by the persistence
+ * context.
+ *
+ * @author mknv
+ */
+public class EntryListItem implements Serializable {
+
+    private static final long serialVersionUID = -2286532413905738171L;
+
+    private final Integer id;
+    private final String name;
+    private final String login;
+    private final String email;
+    private final String phone;
+    private final String description;
+    private final Integer groupId;
+    private final LocalDate expiredDate;
+
+    public EntryListItem(Integer id, String name, String login, String email, String phone, String description,
+            Integer groupId, LocalDate expiredDate) {
+        this.id = id;
+        this.name = name;
+        this.login = login;
+        this.email = email;
+        this.phone = phone;
+        this.description = description;
+        this.groupId = groupId;
+        this.expiredDate = expiredDate;
+    }
+
+    /**
+     * Makes a view of the entry.
+     *
+     * @param entry an entry
+     * @return an entry view
+     */
+    public static EntryListItem of(Entry entry) {
+        return new EntryListItem(entry.getId(), entry.getName(), entry.getLogin(), entry.getEmail(), entry.getPhone(),
+                entry.getDescription(), entry.getGroup() == null ? null : entry.getGroup().getId(),
+                entry.getExpiredDate());
+    }
+
+    public Integer getDaysLeft() {
+        if (expiredDate == null) {
+            return null;
+        }
+        LocalDate now = LocalDate.now();
+        return (int) ChronoUnit.DAYS.between(now, expiredDate);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Integer getGroupId() {
+        return groupId;
+    }
+
+    @JsonIgnore
+    public LocalDate getExpiredDate() {
+        return expiredDate;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 41 * hash + Objects.hashCode(this.id);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final EntryListItem other = (EntryListItem) obj;
+        return Objects.equals(this.id, other.id);
+    }
+
+    @Override
+    public String toString() {
+        return "EntryListItem{" + "id=" + id + ", name=" + name + ", login=" + login + ", email=" + email + ", groupId=" + groupId + ", expiredDate=" + expiredDate + '}';
+    }
+}
@@ -0,0 +1,78 @@
+package mknv.psm.server.model.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+
+/**
+ * A read-only view of an entry which has expired or will expire soon. Is
+ * selected by a constructor expression.
+ *
+ * @author mknv
+ */
+public class ExpiringEntry implements Serializable {
+
+    private static final long serialVersionUID = 4185630017253479127L;
+
+    private final Integer id;
+    private final Integer userId;
+    private final String name;
+    private final LocalDate expiredDate;
+
+    public ExpiringEntry(Integer id, Integer userId, String name, LocalDate expiredDate) {
+        this.id = id;
+        this.userId = userId;
+        this.name = name;
+        this.expiredDate = expiredDate;
+    }
+
+    public Integer getDaysLeft() {
+        return (int) ChronoUnit.DAYS.between(LocalDate.now(), expiredDate);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    @JsonIgnore
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDate getExpiredDate() {
+        return expiredDate;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 41 * hash + Objects.hashCode(this.id);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final ExpiringEntry other = (ExpiringEntry) obj;
+        return Objects.equals(this.id, other.id);
+    }
+
+    @Override
+    public String toString() {
+        return "ExpiringEntry{" + "id=" + id + ", userId=" + userId + ", name=" + name + ", expiredDate=" + expiredDate + '}';
+    }
+}
@@ -3,6 +3,7 @@ package mknv.psm.server.model.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
 import java.util.Objects;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -15,12 +16,16 @@ import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  *
  * @author mknv
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "groups")
 public class Group implements Serializable {
 
@@ -28,7 +33,7 @@ public class Group implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "groups_seq")
-    @SequenceGenerator(name = "groups_seq", sequenceName = "groups_seq", allocationSize = 1)
+    @SequenceGenerator(name = "groups_seq", sequenceName = "groups_seq", allocationSize = 50)
     @Column
     private Integer id;
 
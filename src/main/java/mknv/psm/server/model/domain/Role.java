@@ -4,12 +4,17 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  *
  * @author mknv
  */
 @Entity
+@Cacheable
+//The roles are never changed by the application
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Table(name = "roles", uniqueConstraints = @UniqueConstraint(columnNames = "name"))
 public class Role implements Serializable {
 
@@ -18,6 +18,8 @@ import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  *
@@ -31,7 +33,7 @@ public class User implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
-    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 1)
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column
     private Integer id;
 
@@ -52,6 +54,7 @@ public class User implements Serializable {
             inverseJoinColumns = {
                 @JoinColumn(name = "role_id", referencedColumnName = "id")})
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Role> roles = new ArrayList<>();
 
     public User() {
@@ -1,16 +1,28 @@
 package mknv.psm.server.model.repository;
 
 import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.ExpiringEntry;
+import mknv.psm.server.model.domain.Group;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import mknv.psm.server.model.domain.User;
 
 /**
  *
  * @author mknv
  */
+@Transactional(readOnly = true)
 public interface EntryRepository extends JpaRepository<Entry, Integer> {
 
     /**
@@ -22,6 +34,92 @@ public interface EntryRepository extends JpaRepository<Entry, Integer> {
     @Query("select e from Entry e where e.user = :user order by e.name")
     List<Entry> findByUser(@Param("user") User user);
 
+    /**
+     * Retrieves a list of entry views by user. Sorts the result by name. The
+     * password column is not selected.
+     *
+     * @param user a user
+     * @return a list of entry views
+     */
+    @Query("select new mknv.psm.server.model.domain.EntryListItem(e.id, e.name, e.login, e.email, e.phone,"
+            + " e.description, e.group.id, e.expiredDate) from Entry e where e.user = :user order by e.name")
+    List<EntryListItem> findListItemsByUser(@Param("user") User user);
+
+    /**
+     * Retrieves ids of entries of the user which were deleted by transactions
+     * with ids not less than the transaction id.
+     *
+     * @param userId a user id
+     * @param since a transaction id
+     * @return a list of ids
+     */
+    @Query(value = "select record_id from tombstones where table_name = 'entries' and user_id = :userId"
+            + " and change_txid >= :since order by record_id", nativeQuery = true)
+    List<Integer> findIdsDeletedSince(@Param("userId") Integer userId, @Param("since") long since);
+
+    /**
+     * Retrieves the first page of entries of all users which expire between
+     * the dates inclusive. Sorts the result by expired date and id. Uses the
+     * partial index on the expired_date column.
+     *
+     * @param from a date
+     * @param until a date
+     * @param pageable a page size
+     * @return a list of expiring entries
+     */
+    @Query("select new mknv.psm.server.model.domain.ExpiringEntry(e.id, e.user.id, e.name, e.expiredDate)"
+            + " from Entry e where e.expiredDate is not null and e.expiredDate >= :from and e.expiredDate <= :until"
+            + " order by e.expiredDate, e.id")
+    List<ExpiringEntry> findExpiring(@Param("from") LocalDate from, @Param("until") LocalDate until,
+            Pageable pageable);
+
+    /**
+     * Retrieves the next page of entries of all users which expire not later
+     * than the date. The page starts after the entry with the expired date and
+     * id, so the lower bound of the first page holds for the next ones.
+     *
+     * @param until a date
+     * @param afterDate an expired date of the last entry of the previous page
+     * @param afterId an id of the last entry of the previous page
+     * @param pageable a page size
+     * @return a list of expiring entries
+     */
+    @Query("select new mknv.psm.server.model.domain.ExpiringEntry(e.id, e.user.id, e.name, e.expiredDate)"
+            + " from Entry e where e.expiredDate is not null and e.expiredDate <= :until"
+            + " and e.expiredDate >= :afterDate and (e.expiredDate > :afterDate or e.id > :afterId)"
+            + " order by e.expiredDate, e.id")
+    List<ExpiringEntry> findExpiringAfter(@Param("until") LocalDate until, @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Integer afterId, Pageable pageable);
+
+    /**
+     * Retrieves entries of the user which expire between the dates inclusive.
+     * Sorts the result by expired date and id.
+     *
+     * @param user a user
+     * @param from a date
+     * @param until a date
+     * @return a list of expiring entries
+     */
+    @Query("select new mknv.psm.server.model.domain.ExpiringEntry(e.id, e.user.id, e.name, e.expiredDate)"
+            + " from Entry e where e.user = :user and e.expiredDate is not null"
+            + " and e.expiredDate >= :from and e.expiredDate <= :until order by e.expiredDate, e.id")
+    List<ExpiringEntry> findExpiringByUser(@Param("user") User user, @Param("from") LocalDate from,
+            @Param("until") LocalDate until);
+
+    /**
+     * Retrieves a stream of entries by user. Fetches group eagerly. Sorts the
+     * result by name. The rows are read from a database cursor, so the method
+     * must be called in a transaction and the stream must be closed.
+     *
+     * @param user a user
+     * @return a stream of entries
+     */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "100"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select e from Entry e left join fetch e.group where e.user = :user order by e.name, e.id")
+    Stream<Entry> streamByUser(@Param("user") User user);
+
     /**
      * Retrieves a list of entries where group is null. Sorts the result by
      * name.
@@ -53,4 +151,113 @@ public interface EntryRepository extends JpaRepository<Entry, Integer> {
     @Query("select e from Entry e left join fetch e.group join fetch e.user where e.id = :id")
     Entry findByIdFetchAll(@Param("id") Integer id);
 
+    /**
+     * Retrieves a list of entries by ids which belong to the user.
+     *
+     * @param ids entry ids
+     * @param user a user
+     * @return a list of entries
+     */
+    @Query("select e from Entry e where e.id in :ids and e.user = :user")
+    List<Entry> findByIdsAndUser(@Param("ids") Collection<Integer> ids, @Param("user") User user);
+
+    /**
+     * Updates the entry if it belongs to the user and its group, if set,
+     * belongs to the user as well. The ownership is checked by the update
+     * statement itself, the entry is not loaded.
+     *
+     * @param entry an entry with id
+     * @param user a user
+     * @return a number of updated entries, 0 if the entry is not found or the
+     * entry or the group belongs to another user
+     */
+    @Transactional
+    @Modifying
+    @Query("update Entry e set e.name = :#{#entry.name}, e.login = :#{#entry.login},"
+            + " e.password = :#{#entry.password}, e.email = :#{#entry.email}, e.phone = :#{#entry.phone},"
+            + " e.description = :#{#entry.description}, e.group = :#{#entry.group},"
+            + " e.expiredDate = :#{#entry.expiredDate}"
+            + " where e.id = :#{#entry.id} and e.user = :user and (:#{#entry.group} is null"
+            + " or exists (select g.id from Group g where g = :#{#entry.group} and g.user = :user))")
+    int updateByUser(@Param("entry") Entry entry, @Param("user") User user);
+
+    /**
+     * Deletes the entry if it belongs to the user.
+     *
+     * @param id an entry id
+     * @param user a user
+     * @return a number of deleted entries, 0 if the entry is not found or
+     * belongs to another user
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Entry e where e.id = :id and e.user = :user")
+    int deleteByIdAndUser(@Param("id") Integer id, @Param("user") User user);
+
+    /**
+     * Retrieves ids of the entries which belong to the user.
+     *
+     * @param ids entry ids
+     * @param user a user
+     * @return a list of entry ids
+     */
+    @Query("select e.id from Entry e where e.id in :ids and e.user = :user")
+    List<Integer> findIdsByIdsAndUser(@Param("ids") Collection<Integer> ids, @Param("user") User user);
+
+    /**
+     * Moves the entries which belong to the user to the group. The group must
+     * belong to the user, it is not checked by the statement.
+     *
+     * @param ids entry ids
+     * @param group a group, null to remove the entries from their groups
+     * @param user a user
+     * @return a number of updated entries
+     */
+    @Transactional
+    @Modifying
+    @Query("update Entry e set e.group = :group where e.id in :ids and e.user = :user")
+    int updateGroupByIdsAndUser(@Param("ids") Collection<Integer> ids, @Param("group") Group group,
+            @Param("user") User user);
+
+    /**
+     * Sets the expired date of the entries which belong to the user.
+     *
+     * @param ids entry ids
+     * @param expiredDate an expired date, null to remove the password validity
+     * @param user a user
+     * @return a number of updated entries
+     */
+    @Transactional
+    @Modifying
+    @Query("update Entry e set e.expiredDate = :expiredDate where e.id in :ids and e.user = :user")
+    int updateExpiredDateByIdsAndUser(@Param("ids") Collection<Integer> ids,
+            @Param("expiredDate") LocalDate expiredDate, @Param("user") User user);
+
+    /**
+     * Deletes the entries which belong to the user.
+     *
+     * @param ids entry ids
+     * @param user a user
+     * @return a number of deleted entries
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Entry e where e.id in :ids and e.user = :user")
+    int deleteByIdsAndUser(@Param("ids") Collection<Integer> ids, @Param("user") User user);
+
+    /**
+     * Moves all entries of the group to another group. Only the entries of the
+     * user are moved. The target group must belong to the user, it is not
+     * checked by the statement.
+     *
+     * @param groupId a group id
+     * @param target a target group, null to remove the entries from the group
+     * @param user a user
+     * @return a number of moved entries
+     */
+    @Transactional
+    @Modifying
+    @Query("update Entry e set e.group = :target where e.group.id = :groupId and e.user = :user")
+    int updateGroupByGroupIdAndUser(@Param("groupId") Integer groupId, @Param("target") Group target,
+            @Param("user") User user);
 }
@@ -3,25 +3,57 @@ package mknv.psm.server.model.repository;
 import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.User;
 import java.util.List;
+import javax.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  *
  * @author mknv
  */
+@Transactional(readOnly = true)
 public interface GroupRepository extends JpaRepository<Group, Integer> {
 
     /**
-     * Retrieves a list of groups by user. Sorts the result by name.
+     * Retrieves a list of groups by user. Sorts the result by name. The result
+     * is kept in the query cache until the groups table is changed.
      *
      * @param user a user
      * @return a list of groups
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("select g from Group g where g.user = :user order by g.name")
     List<Group> findByUser(@Param("user") User user);
 
+    /**
+     * Retrieves a list of groups by user which were inserted or updated by
+     * transactions with ids not less than the transaction id. Sorts the result
+     * by id.
+     *
+     * @param userId a user id
+     * @param since a transaction id
+     * @return a list of groups
+     */
+    @Query(value = "select id, user_id, name from groups where user_id = :userId and change_txid >= :since"
+            + " order by id", nativeQuery = true)
+    List<Group> findChangedSince(@Param("userId") Integer userId, @Param("since") long since);
+
+    /**
+     * Retrieves ids of groups of the user which were deleted by transactions
+     * with ids not less than the transaction id.
+     *
+     * @param userId a user id
+     * @param since a transaction id
+     * @return a list of ids
+     */
+    @Query(value = "select record_id from tombstones where table_name = 'groups' and user_id = :userId"
+            + " and change_txid >= :since order by record_id", nativeQuery = true)
+    List<Integer> findIdsDeletedSince(@Param("userId") Integer userId, @Param("since") long since);
+
     /**
      * Retrieves a group by id. Fetches user eagerly.
      *
@@ -30,4 +62,31 @@ public interface GroupRepository extends JpaRepository<Group, Integer> {
      */
     @Query("select g from Group g join fetch g.user where g.id = :id")
     Group findByIdFetchUser(@Param("id") Integer id);
+
+    /**
+     * Renames the group if it belongs to the user.
+     *
+     * @param id a group id
+     * @param name a new name
+     * @param user a user
+     * @return a number of updated groups, 0 if the group is not found or
+     * belongs to another user
+     */
+    @Transactional
+    @Modifying
+    @Query("update Group g set g.name = :name where g.id = :id and g.user = :user")
+    int updateNameByIdAndUser(@Param("id") Integer id, @Param("name") String name, @Param("user") User user);
+
+    /**
+     * Deletes the group if it belongs to the user.
+     *
+     * @param id a group id
+     * @param user a user
+     * @return a number of deleted groups, 0 if the group is not found or
+     * belongs to another user
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Group g where g.id = :id and g.user = :user")
+    int deleteByIdAndUser(@Param("id") Integer id, @Param("user") User user);
 }
@@ -1,7 +1,10 @@
 package mknv.psm.server.model.repository;
 
 import mknv.psm.server.model.domain.Role;
+import java.util.List;
+import javax.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 /**
  *
@@ -9,4 +12,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface RoleRepository extends JpaRepository<Role, Integer> {
 
+    /**
+     * Retrieves all roles. The result is kept in the query cache.
+     *
+     * @return a list of roles
+     */
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Role> findAll();
 }
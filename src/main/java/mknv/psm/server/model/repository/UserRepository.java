@@ -2,14 +2,17 @@ package mknv.psm.server.model.repository;
 
 import mknv.psm.server.model.domain.User;
 import java.util.List;
+import org.hibernate.Hibernate;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  *
  * @author mknv
  */
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Integer> {
 
     /**
@@ -39,11 +42,17 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     User findByName(@Param("name") String name);
 
     /**
-     * Retrieves a user by name. Fetches roles eagerly.
+     * Retrieves a user by name. Fetches roles eagerly. The roles are loaded
+     * from the second-level cache if they are there.
      *
      * @param name a user name
      * @return a user or null if no users found
      */
-    @Query("select distinct u from User u left join fetch u.roles where u.name = :name")
-    User findByNameFetchRoles(@Param("name") String name);
+    default User findByNameFetchRoles(String name) {
+        User user = findByName(name);
+        if (user != null) {
+            Hibernate.initialize(user.getRoles());
+        }
+        return user;
+    }
 }
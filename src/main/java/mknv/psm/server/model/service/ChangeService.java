@@ -0,0 +1,113 @@
+package mknv.psm.server.model.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Finds changes of entries and groups of a user. Changes are tracked by the
+ * change_txid columns and the tombstones table, which are maintained by
+ * database triggers. A sync token is the lowest id of the transactions which
+ * might be in progress when the changes were read. Every transaction with a
+ * lower id had finished and its changes were returned, so the next request
+ * returns the changes with ids from the token on. The changes of the
+ * transactions which had finished after the token may be returned twice.
+ *
+ * @author mknv
+ */
+@Service
+public class ChangeService {
+
+    @PersistenceContext
+    private EntityManager em;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+
+    /**
+     * Retrieves changes of the user since the token. All entries and groups
+     * are returned instead if there is no token, if the tombstones after the
+     * token may have been removed, or if the token was not issued by this
+     * database.
+     *
+     * @param user must not be null
+     * @param since a token returned by the previous call or null for the full
+     * list of entries and groups
+     * @return changes
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Changes getChanges(User user, Long since) {
+        if (user == null) {
+            throw new IllegalArgumentException("The user parameter is null.");
+        }
+        //All statements of the transaction see the snapshot of the first one
+        Object[] snapshot = (Object[]) em.createNativeQuery("select txid_snapshot_xmin(s), txid_snapshot_xmax(s),"
+                + " h.change_txid from txid_current_snapshot() s, tombstones_horizon h").getSingleResult();
+        long xmin = ((Number) snapshot[0]).longValue();
+        long xmax = ((Number) snapshot[1]).longValue();
+        long horizon = ((Number) snapshot[2]).longValue();
+        String next = String.valueOf(xmin);
+        if (since == null || since <= horizon || since > xmax) {
+            return new Changes(entryRepository.findListItemsByUser(user), groupRepository.findByUser(user),
+                    Collections.emptyList(), Collections.emptyList(), next, true);
+        }
+        return new Changes(findEntriesChangedSince(user.getId(), since),
+                groupRepository.findChangedSince(user.getId(), since),
+                entryRepository.findIdsDeletedSince(user.getId(), since),
+                groupRepository.findIdsDeletedSince(user.getId(), since),
+                next, false);
+    }
+
+    /**
+     * Retrieves a list of entry views of the user which were inserted or
+     * updated by transactions with ids not less than the transaction id.
+     * Sorts the result by id. The change_txid column is set by a trigger and
+     * is not mapped, so the query is native.
+     *
+     * @param userId a user id
+     * @param since a transaction id
+     * @return a list of entry views
+     */
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public List<EntryListItem> findEntriesChangedSince(Integer userId, long since) {
+        return em.createNativeQuery("select id, name, login, email, phone, description, group_id, expired_date"
+                + " from entries where user_id = :userId and change_txid >= :since order by id", "EntryListItem")
+                .setParameter("userId", userId)
+                .setParameter("since", since)
+                .getResultList();
+    }
+
+    /**
+     * Removes the tombstones older than the retention period and raises the
+     * horizon of tokens to the highest transaction id of them. A client with
+     * an older token gets the full list of entries and groups.
+     *
+     * @param retention the retention period of tombstones
+     * @return the number of removed tombstones
+     */
+    @Transactional
+    public int deleteTombstones(Duration retention) {
+        //One statement, so the horizon covers exactly the removed tombstones
+        Number count = (Number) em.createNativeQuery("with deleted as ("
+                + "delete from tombstones where deleted_at < now() - :seconds * interval '1 second'"
+                + " returning change_txid)"
+                + " update tombstones_horizon set change_txid = greatest(change_txid,"
+                + " (select max(change_txid) from deleted))"
+                + " returning (select count(*) from deleted)")
+                .setParameter("seconds", retention.getSeconds())
+                .getSingleResult();
+        return count.intValue();
+    }
+}
@@ -0,0 +1,56 @@
+package mknv.psm.server.model.service;
+
+import java.util.List;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.Group;
+
+/**
+ * Entries and groups inserted, updated or deleted since a sync token. The
+ * next field is the token for the next request. If the resync field is true,
+ * the lists contain all entries and groups, and the client replaces its copy.
+ *
+ * @author mknv
+ */
+public class Changes {
+
+    private final List<EntryListItem> entries;
+    private final List<Group> groups;
+    private final List<Integer> deletedEntries;
+    private final List<Integer> deletedGroups;
+    private final String next;
+    private final boolean resync;
+
+    public Changes(List<EntryListItem> entries, List<Group> groups, List<Integer> deletedEntries,
+            List<Integer> deletedGroups, String next, boolean resync) {
+        this.entries = entries;
+        this.groups = groups;
+        this.deletedEntries = deletedEntries;
+        this.deletedGroups = deletedGroups;
+        this.next = next;
+        this.resync = resync;
+    }
+
+    public List<EntryListItem> getEntries() {
+        return entries;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    public List<Integer> getDeletedEntries() {
+        return deletedEntries;
+    }
+
+    public List<Integer> getDeletedGroups() {
+        return deletedGroups;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+}
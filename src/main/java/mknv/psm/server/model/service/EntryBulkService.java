@@ -0,0 +1,117 @@
+package mknv.psm.server.model.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+/**
+ * Changes many entries of a user at once. Every operation is a single update
+ * or delete statement per chunk of ids, restricted to the entries of the
+ * user. The entries are not loaded and the passwords are left as they are.
+ * Either all entries are changed or none of them.
+ *
+ * @author mknv
+ */
+@Service
+public class EntryBulkService {
+
+    static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private VaultChangePublisher vaultChangePublisher;
+
+    /**
+     * Moves the entries to the group.
+     *
+     * @param user the owner of the entries, must not be null
+     * @param ids entry ids
+     * @param group a group of the user, null to remove the entries from their
+     * groups
+     * @return true if the entries are moved, false if some of them are not
+     * found or belong to another user. Nothing is changed in this case.
+     */
+    @Transactional
+    public boolean move(User user, Collection<Integer> ids, Group group) {
+        return execute(user, ids, VaultChange.Operation.SAVED,
+                chunk -> entryRepository.updateGroupByIdsAndUser(chunk, group, user));
+    }
+
+    /**
+     * Sets the expired date of the entries.
+     *
+     * @param user the owner of the entries, must not be null
+     * @param ids entry ids
+     * @param expiredDate an expired date, null to remove the password validity
+     * @return true if the entries are updated, false if some of them are not
+     * found or belong to another user. Nothing is changed in this case.
+     */
+    @Transactional
+    public boolean setExpiredDate(User user, Collection<Integer> ids, LocalDate expiredDate) {
+        return execute(user, ids, VaultChange.Operation.SAVED,
+                chunk -> entryRepository.updateExpiredDateByIdsAndUser(chunk, expiredDate, user));
+    }
+
+    /**
+     * Deletes the entries.
+     *
+     * @param user the owner of the entries, must not be null
+     * @param ids entry ids
+     * @return true if the entries are deleted, false if some of them are not
+     * found or belong to another user. Nothing is changed in this case.
+     */
+    @Transactional
+    public boolean delete(User user, Collection<Integer> ids) {
+        return execute(user, ids, VaultChange.Operation.DELETED,
+                chunk -> entryRepository.deleteByIdsAndUser(chunk, user));
+    }
+
+    /**
+     * Finds the ids of entries which are not found or belong to another user.
+     *
+     * @param user a user, must not be null
+     * @param ids entry ids
+     * @return the ids of the entries which the user does not have
+     */
+    @Transactional(readOnly = true)
+    public Set<Integer> findMissingIds(User user, Collection<Integer> ids) {
+        List<Integer> uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Set<Integer> result = new LinkedHashSet<>(uniqueIds);
+        for (int i = 0; i < uniqueIds.size(); i += CHUNK_SIZE) {
+            result.removeAll(entryRepository.findIdsByIdsAndUser(
+                    uniqueIds.subList(i, Math.min(i + CHUNK_SIZE, uniqueIds.size())), user));
+        }
+        return result;
+    }
+
+    private boolean execute(User user, Collection<Integer> ids, VaultChange.Operation operation,
+            ToIntFunction<List<Integer>> statement) {
+        //Duplicates are removed, so the number of affected rows can be compared with the number of ids
+        List<Integer> uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (uniqueIds.isEmpty()) {
+            return true;
+        }
+        int affected = 0;
+        for (int i = 0; i < uniqueIds.size(); i += CHUNK_SIZE) {
+            affected += statement.applyAsInt(uniqueIds.subList(i, Math.min(i + CHUNK_SIZE, uniqueIds.size())));
+        }
+        if (affected != uniqueIds.size()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        vaultChangePublisher.bulkChanged(user.getId(), VaultChange.Type.ENTRY, uniqueIds, operation);
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+package mknv.psm.server.model.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Objects;
+import mknv.psm.server.model.domain.EntryListItem;
+
+/**
+ * A position in a list of entries sorted by lower(name) and id. The names are
+ * compared by code points, the same way as the database compares them in the
+ * "C" collation. The string form is opaque for clients and is passed back in
+ * the after parameter.
+ *
+ * @author mknv
+ */
+public final class EntryCursor {
+
+    /**
+     * The order of the keyset pagination.
+     */
+    public static final Comparator<EntryListItem> ORDER = Comparator
+            .comparing((EntryListItem e) -> lower(e.getName()), EntryCursor::compareCodePoints)
+            .thenComparing(EntryListItem::getId);
+
+    private final String name;
+    private final int id;
+
+    public EntryCursor(String name, int id) {
+        this.name = lower(name);
+        this.id = id;
+    }
+
+    /**
+     * Returns the position of the entry.
+     *
+     * @param entry must have an id
+     * @return a cursor
+     */
+    public static EntryCursor of(EntryListItem entry) {
+        return new EntryCursor(entry.getName(), entry.getId());
+    }
+
+    /**
+     * Parses the string form. Used to convert request parameters.
+     *
+     * @param value the string form
+     * @return a cursor
+     * @throws IllegalArgumentException if the value is not a cursor
+     */
+    public static EntryCursor valueOf(String value) {
+        String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        int separator = decoded.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        return new EntryCursor(decoded.substring(separator + 1), Integer.parseInt(decoded.substring(0, separator)));
+    }
+
+    /**
+     * Lowercase name.
+     *
+     * @return a name
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Checks whether the entry is after this position.
+     *
+     * @param entry an entry
+     * @return true if the entry is after the position
+     */
+    public boolean isBefore(EntryListItem entry) {
+        int result = compareCodePoints(lower(entry.getName()), name);
+        return result > 0 || result == 0 && entry.getId() > id;
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compares the strings by code points. String.compareTo compares UTF-16
+     * chars, which puts the characters above U+FFFF before U+E000..U+FFFF.
+     */
+    static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int x = a.codePointAt(i);
+            int y = b.codePointAt(j);
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        EntryCursor other = (EntryCursor) obj;
+        return id == other.id && name.equals(other.name);
+    }
+
+    @Override
+    public String toString() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + ":" + name).getBytes(StandardCharsets.UTF_8));
+    }
+}
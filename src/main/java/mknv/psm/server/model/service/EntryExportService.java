@@ -0,0 +1,117 @@
+package mknv.psm.server.model.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import mknv.psm.server.ReplicaDataSourceConfiguration;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.util.PasswordEncryptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Exports entries of a user to NDJSON or CSV. The entries are read from a
+ * database cursor and written one by one, so the memory usage does not depend
+ * on the number of entries. The format of the rows is the same as of the
+ * import.
+ *
+ * @author mknv
+ */
+@Service
+public class EntryExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final ObjectWriter CSV_WRITER = CSV_MAPPER.writer(CSV_MAPPER.schemaFor(EntryImportRow.class).withHeader())
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    @PersistenceContext
+    private EntityManager em;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private PasswordEncryptor passwordEncryptor;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writes entries of the user to the output stream. The passwords are
+     * decrypted. The output stream is flushed but not closed.
+     *
+     * @param user must not be null
+     * @param format an output format
+     * @param out an output stream
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public void export(User user, Format format, OutputStream out) throws IOException {
+        if (user == null) {
+            throw new IllegalArgumentException("The user parameter is null.");
+        }
+        //The export is not cached, so it may read the rows from the replica
+        ReplicaDataSourceConfiguration.useReplica();
+        BufferedOutputStream buffered = new BufferedOutputStream(out);
+        try (Stream<Entry> entries = entryRepository.streamByUser(user)) {
+            Iterator<Entry> iterator = entries.iterator();
+            if (format == Format.CSV) {
+                writeCsv(iterator, buffered);
+            } else {
+                writeNdjson(iterator, buffered);
+            }
+        }
+        buffered.flush();
+    }
+
+    private void writeNdjson(Iterator<Entry> entries, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(EntryImportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (entries.hasNext()) {
+            writer.writeValue(out, toRow(entries.next()));
+            out.write('\n');
+        }
+    }
+
+    private void writeCsv(Iterator<Entry> entries, OutputStream out) throws IOException {
+        try (SequenceWriter writer = CSV_WRITER.writeValues(out)) {
+            while (entries.hasNext()) {
+                writer.write(toRow(entries.next()));
+            }
+        }
+    }
+
+    /**
+     * Converts the entry to a row and detaches it, so the persistence context
+     * does not grow.
+     */
+    private EntryImportRow toRow(Entry entry) {
+        EntryImportRow row = new EntryImportRow();
+        row.setName(entry.getName());
+        row.setLogin(entry.getLogin());
+        row.setEmail(entry.getEmail());
+        row.setPhone(entry.getPhone());
+        //The password is decrypted only when its row is written
+        row.setPassword(entry.getPassword() == null ? null : passwordEncryptor.decrypt(entry.getPassword()));
+        row.setDescription(entry.getDescription());
+        row.setGroup(entry.getGroup() == null ? null : entry.getGroup().getName());
+        row.setExpiredDate(entry.getExpiredDate() == null ? null : entry.getExpiredDate().toString());
+        em.detach(entry);
+        return row;
+    }
+}
@@ -0,0 +1,59 @@
+package mknv.psm.server.model.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The number of imported entries and errors of the rows which were skipped.
+ *
+ * @author mknv
+ */
+public class EntryImportResult {
+
+    /**
+     * An error of a row. Rows are numbered from 1.
+     */
+    public static class RowError {
+
+        private final int row;
+        private final String message;
+
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "RowError{" + "row=" + row + ", message=" + message + '}';
+        }
+    }
+
+    private int imported;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "EntryImportResult{" + "imported=" + imported + ", errors=" + errors + '}';
+    }
+}
@@ -0,0 +1,199 @@
+package mknv.psm.server.model.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.util.PasswordEncryptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports entries from CSV and JSON files. The rows are read as a stream and
+ * saved in chunks, each chunk in its own transaction, so the memory usage does
+ * not depend on the size of the file. Inserts of a chunk are sent as JDBC
+ * batches, and the chunk is published as one change of the vault.
+ *
+ * @author mknv
+ */
+@Service
+public class EntryImportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final ObjectReader CSV_READER = CSV_MAPPER.readerFor(EntryImportRow.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    @PersistenceContext
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private PasswordEncryptor passwordEncryptor;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private VaultEntityListener vaultEntityListener;
+    @Autowired
+    private VaultChangePublisher vaultChangePublisher;
+
+    /**
+     * Imports entries from a CSV file. The first line must contain the column
+     * names: name, login, email, phone, password, description, group,
+     * expiredDate. Columns may be omitted.
+     *
+     * @param user the owner of the entries, must not be null
+     * @param in the file content
+     * @return the number of imported entries and errors of the skipped rows
+     * @throws IOException if the file can not be parsed. The chunks saved
+     * before the error remain saved.
+     */
+    public EntryImportResult importCsv(User user, InputStream in) throws IOException {
+        return importRows(user, CSV_READER.readValues(in));
+    }
+
+    /**
+     * Imports entries from a JSON array of objects with the same fields as the
+     * CSV columns.
+     *
+     * @param user the owner of the entries, must not be null
+     * @param in the file content
+     * @return the number of imported entries and errors of the skipped rows
+     * @throws IOException if the file can not be parsed. The chunks saved
+     * before the error remain saved.
+     */
+    public EntryImportResult importJson(User user, InputStream in) throws IOException {
+        return importRows(user, objectMapper.readerFor(EntryImportRow.class).readValues(in));
+    }
+
+    private EntryImportResult importRows(User user, MappingIterator<EntryImportRow> rows) throws IOException {
+        if (user == null) {
+            throw new IllegalArgumentException("The user parameter is null.");
+        }
+        //Group names are resolved once per import
+        Map<String, Group> groups = new HashMap<>();
+        groupRepository.findByUser(user).forEach(g -> groups.put(g.getName().toLowerCase(), g));
+
+        EntryImportResult result = new EntryImportResult();
+        List<Entry> chunk = new ArrayList<>(CHUNK_SIZE);
+        int rowNumber = 0;
+        try {
+            while (rows.hasNextValue()) {
+                rowNumber++;
+                Entry entry = toEntry(rows.nextValue(), user, groups, rowNumber, result);
+                if (entry != null) {
+                    chunk.add(entry);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    save(user, chunk, result);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                save(user, chunk, result);
+            }
+        } finally {
+            rows.close();
+        }
+        return result;
+    }
+
+    /**
+     * Converts a row to a new entry. Returns null and adds an error to the
+     * result if the row is invalid.
+     */
+    private Entry toEntry(EntryImportRow row, User user, Map<String, Group> groups, int rowNumber,
+            EntryImportResult result) {
+        Entry entry = new Entry(trimToNull(row.getName()), user);
+        entry.setLogin(trimToNull(row.getLogin()));
+        entry.setEmail(trimToNull(row.getEmail()));
+        entry.setPhone(trimToNull(row.getPhone()));
+        entry.setPassword(row.getPassword() == null || row.getPassword().isEmpty() ? null : row.getPassword());
+        entry.setDescription(trimToNull(row.getDescription()));
+
+        String groupName = trimToNull(row.getGroup());
+        if (groupName != null) {
+            Group group = groups.get(groupName.toLowerCase());
+            if (group == null) {
+                result.getErrors().add(new EntryImportResult.RowError(rowNumber, "group: not found"));
+                return null;
+            }
+            entry.setGroup(group);
+        }
+        String expiredDate = trimToNull(row.getExpiredDate());
+        if (expiredDate != null) {
+            try {
+                entry.setExpiredDate(LocalDate.parse(expiredDate));
+            } catch (DateTimeParseException e) {
+                result.getErrors().add(new EntryImportResult.RowError(rowNumber, "expiredDate: invalid date"));
+                return null;
+            }
+        }
+        Set<ConstraintViolation<Entry>> violations = validator.validate(entry);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            result.getErrors().add(new EntryImportResult.RowError(rowNumber, message));
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Encrypts the passwords of the chunk in parallel and saves the chunk in a
+     * new transaction. The changes are published once for the chunk after the
+     * commit instead of one by one. Clears the chunk.
+     */
+    private void save(User user, List<Entry> chunk, EntryImportResult result) {
+        chunk.parallelStream()
+                .filter(e -> e.getPassword() != null)
+                .forEach(e -> e.setPassword(passwordEncryptor.encrypt(e.getPassword())));
+        new TransactionTemplate(transactionManager).execute(status -> {
+            vaultEntityListener.runSuspended(() -> {
+                chunk.forEach(em::persist);
+                em.flush();
+            });
+            em.clear();
+            vaultChangePublisher.bulkChanged(user.getId(), VaultChange.Type.ENTRY,
+                    chunk.stream().map(Entry::getId).collect(Collectors.toList()), VaultChange.Operation.SAVED);
+            return null;
+        });
+        result.setImported(result.getImported() + chunk.size());
+        chunk.clear();
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
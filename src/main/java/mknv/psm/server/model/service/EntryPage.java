@@ -0,0 +1,46 @@
+package mknv.psm.server.model.service;
+
+import java.util.List;
+import mknv.psm.server.model.domain.EntryListItem;
+
+/**
+ * A page of entries. The next field is the cursor of the next page or null
+ * if this page is the last one.
+ *
+ * @author mknv
+ */
+public class EntryPage {
+
+    private final List<EntryListItem> entries;
+    private final String next;
+
+    public EntryPage(List<EntryListItem> entries, EntryCursor next) {
+        this.entries = entries;
+        this.next = next == null ? null : next.toString();
+    }
+
+    /**
+     * Makes a page from entries which follow the requested position. The list
+     * may contain one entry more than the limit, it means there is a next
+     * page.
+     *
+     * @param entries entries sorted by {@link EntryCursor#ORDER}
+     * @param limit the page size
+     * @return a page
+     */
+    public static EntryPage of(List<EntryListItem> entries, int limit) {
+        if (entries.size() > limit) {
+            List<EntryListItem> page = entries.subList(0, limit);
+            return new EntryPage(page, EntryCursor.of(page.get(limit - 1)));
+        }
+        return new EntryPage(entries, null);
+    }
+
+    public List<EntryListItem> getEntries() {
+        return entries;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
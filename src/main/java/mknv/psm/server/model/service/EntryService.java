@@ -1,15 +1,21 @@
 package mknv.psm.server.model.service;
 
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import static mknv.psm.server.SqlFunctionConfiguration.COLLATED_LOWER;
 import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
 import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +29,8 @@ public class EntryService {
 
     @PersistenceContext
     private EntityManager em;
+    @Autowired
+    private VaultCache vaultCache;
 
     /**
      * Retrieves a list of entries selected by user, name and group.
@@ -32,19 +40,94 @@ public class EntryService {
      * if the length of the name is more that 1.
      * @param group adds the search criteria by group
      * @param isEmptyGroup adds the search criteria where group is null
-     * @return a list of entries
+     * @return a list of entry views sorted by lower(name) and id
      */
-    public List<Entry> find(User user, String name, Group group, boolean isEmptyGroup) {
+    @Transactional(readOnly = true)
+    public List<EntryListItem> find(User user, String name, Group group, boolean isEmptyGroup) {
+        return find(user, name, group, isEmptyGroup, false);
+    }
+
+    /**
+     * Retrieves a list of entries selected by user, name and group.
+     *
+     * @param user must not be null
+     * @param name adds the case independent substring search criteria by name
+     * if the length of the name is more that 1.
+     * @param group adds the search criteria by group
+     * @param isEmptyGroup adds the search criteria where group is null
+     * @param anyField if true, the name is searched in login, email and
+     * description as well
+     * @return a list of entry views sorted by lower(name) and id
+     */
+    @Transactional(readOnly = true)
+    public List<EntryListItem> find(User user, String name, Group group, boolean isEmptyGroup, boolean anyField) {
+        if (user == null) {
+            throw new IllegalArgumentException("The user parameter is null.");
+        }
+        if (vaultCache.isEnabled()) {
+            return findInCache(user, name, group, isEmptyGroup, anyField);
+        }
+        return createQuery(user, name, group, isEmptyGroup, anyField, null).getResultList();
+    }
+
+    /**
+     * Retrieves a page of entries selected by user, name and group. The
+     * entries are sorted by lower(name) and id.
+     *
+     * @param user must not be null
+     * @param name adds the case independent substring search criteria by name
+     * if the length of the name is more that 1.
+     * @param group adds the search criteria by group
+     * @param isEmptyGroup adds the search criteria where group is null
+     * @param anyField if true, the name is searched in login, email and
+     * description as well
+     * @param after the position of the last entry of the previous page, null
+     * for the first page
+     * @param limit the page size, must be positive
+     * @return a page of entries
+     */
+    @Transactional(readOnly = true)
+    public EntryPage find(User user, String name, Group group, boolean isEmptyGroup, boolean anyField,
+            EntryCursor after, int limit) {
         if (user == null) {
             throw new IllegalArgumentException("The user parameter is null.");
         }
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit parameter must be positive.");
+        }
+        //One extra entry is selected to find out if there is a next page
+        if (vaultCache.isEnabled()) {
+            return EntryPage.of(findInCache(user, name, group, isEmptyGroup, anyField).stream()
+                    .filter(e -> after == null || after.isBefore(e))
+                    .limit(limit + 1)
+                    .collect(Collectors.toList()), limit);
+        }
+        TypedQuery<EntryListItem> query = createQuery(user, name, group, isEmptyGroup, anyField, after);
+        query.setMaxResults(limit + 1);
+        return EntryPage.of(query.getResultList(), limit);
+    }
+
+    private TypedQuery<EntryListItem> createQuery(User user, String name, Group group, boolean isEmptyGroup, boolean anyField,
+            EntryCursor after) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Entry> cq = cb.createQuery(Entry.class);
+        CriteriaQuery<EntryListItem> cq = cb.createQuery(EntryListItem.class);
         Root<Entry> root = cq.from(Entry.class);
+        Expression<String> lowerName = cb.lower(root.get("name"));
+        //The sort key is compared by code points, as EntryCursor.ORDER does
+        Expression<String> sortName = cb.function(COLLATED_LOWER, String.class, root.get("name"));
 
         Predicate predicate = cb.equal(root.get("user"), user);
+        //The conditions have the form lower(column) like '%value%'
+        //to be served by the trigram indexes
         if (name != null && name.length() > 1) {
-            Predicate namePredicate = cb.like(cb.lower(root.get("name")), "%" + name.toLowerCase() + "%");
+            String pattern = "%" + name.toLowerCase() + "%";
+            Predicate namePredicate = cb.like(lowerName, pattern);
+            if (anyField) {
+                namePredicate = cb.or(namePredicate,
+                        cb.like(cb.lower(root.get("login")), pattern),
+                        cb.like(cb.lower(root.get("email")), pattern),
+                        cb.like(cb.lower(root.get("description")), pattern));
+            }
             predicate = cb.and(predicate, namePredicate);
         }
         if (isEmptyGroup) {
@@ -54,8 +137,42 @@ public class EntryService {
             Predicate groupPredicate = cb.equal(root.get("group"), group);
             predicate = cb.and(predicate, groupPredicate);
         }
+        //The keyset condition (lower(name), id) > (:name, :id). JPQL has no row values,
+        //the first condition bounds the range of the (user_id, lower(name), id) index.
+        if (after != null) {
+            Predicate keysetPredicate = cb.and(
+                    cb.greaterThanOrEqualTo(sortName, after.getName()),
+                    cb.or(cb.greaterThan(sortName, after.getName()),
+                            cb.greaterThan(root.get("id"), after.getId())));
+            predicate = cb.and(predicate, keysetPredicate);
+        }
+        //Only the columns of the list are selected
+        cq.select(cb.construct(EntryListItem.class, root.get("id"), root.get("name"), root.get("login"),
+                root.get("email"), root.get("phone"), root.get("description"), root.get("group").get("id"),
+                root.get("expiredDate")));
         cq.where(predicate);
-        cq.orderBy(cb.asc(root.get("name")));
-        return em.createQuery(cq).getResultList();
+        cq.orderBy(cb.asc(sortName), cb.asc(root.get("id")));
+        return em.createQuery(cq);
+    }
+
+    /**
+     * Applies the same criteria as the database query to the cached entries.
+     */
+    private List<EntryListItem> findInCache(User user, String name, Group group, boolean isEmptyGroup, boolean anyField) {
+        String lowerName = name != null && name.length() > 1 ? name.toLowerCase() : null;
+        return vaultCache.getEntries(user).stream()
+                .filter(e -> lowerName == null
+                || contains(e.getName(), lowerName)
+                || anyField && (contains(e.getLogin(), lowerName)
+                || contains(e.getEmail(), lowerName)
+                || contains(e.getDescription(), lowerName)))
+                .filter(e -> isEmptyGroup ? e.getGroupId() == null
+                : group == null || group.getId().equals(e.getGroupId()))
+                .sorted(EntryCursor.ORDER)
+                .collect(Collectors.toList());
+    }
+
+    private static boolean contains(String value, String lowerName) {
+        return value != null && value.toLowerCase().contains(lowerName);
     }
 }
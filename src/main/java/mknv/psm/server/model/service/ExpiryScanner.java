@@ -0,0 +1,221 @@
+package mknv.psm.server.model.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import mknv.psm.server.model.domain.ExpiringEntry;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds entries which have expired in the last days or expire in the next
+ * days. A scheduled job reads the expiring entries of all users in batches by
+ * the partial index on the expired_date column and keeps a summary per user in
+ * a bounded cache. A summary is made again for one user if the entries of the
+ * user have changed since the scan, the date has changed or the summary has
+ * been evicted.
+ *
+ * @author mknv
+ */
+@Component
+@ConfigurationProperties(prefix = "expiry.scanner")
+public class ExpiryScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiryScanner.class);
+
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private VaultCache vaultCache;
+
+    private boolean enabled = true;
+    private int days = 30;
+    private int batchSize = 500;
+    private long maximumSize = 10000;
+    private Duration expireAfterWrite = Duration.ofHours(2);
+    private Cache<Integer, ExpirySummary> summaries;
+    //The users whose summaries are being made by the scan
+    private final Set<Integer> building = ConcurrentHashMap.newKeySet();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public void setDays(int days) {
+        this.days = days;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    @PostConstruct
+    public void init() {
+        summaries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${expiry.scanner.interval:PT1H}",
+            initialDelayString = "${expiry.scanner.initial-delay:PT1M}")
+    public void scheduledScan() {
+        if (enabled) {
+            scan();
+        }
+    }
+
+    /**
+     * Reads the expiring entries of all users and replaces the summaries.
+     * The entries of a batch are added to the summaries of their users as the
+     * batch arrives. A summary is not used by {@link #getSummary(User)} until
+     * the scan has finished. The versions of all users are read before the
+     * entries, so a change made during the scan makes the summary of the user
+     * outdated. A summary made by {@link #getSummary(User)} during the scan is
+     * kept.
+     */
+    public void scan() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(days);
+        LocalDate until = today.plusDays(days);
+        Map<Integer, ExpirySummary> previous = new HashMap<>(summaries.asMap());
+        Function<Integer, String> versions = vaultCache.getVersions();
+        //The last summary put by the scan for every user. Weak, so an evicted summary is not kept
+        Map<Integer, WeakReference<ExpirySummary>> scanned = new HashMap<>();
+        PageRequest page = PageRequest.of(0, batchSize);
+        List<ExpiringEntry> batch = entryRepository.findExpiring(from, until, page);
+        int count = 0;
+        try {
+            while (!batch.isEmpty()) {
+                Map<Integer, List<ExpiringEntry>> entries = new HashMap<>();
+                for (ExpiringEntry entry : batch) {
+                    entries.computeIfAbsent(entry.getUserId(), userId -> new ArrayList<>()).add(entry);
+                }
+                entries.forEach((userId, userEntries) -> merge(userId, userEntries, today, versions, previous,
+                        scanned));
+                count += batch.size();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                ExpiringEntry last = batch.get(batch.size() - 1);
+                batch = entryRepository.findExpiringAfter(until, last.getExpiredDate(), last.getId(), page);
+            }
+            previous.forEach((userId, summary) -> {
+                if (!scanned.containsKey(userId)) {
+                    summaries.asMap().remove(userId, summary);
+                }
+            });
+        } finally {
+            building.clear();
+        }
+        log.info("{} expiring entries of {} users found in {} ms", count, scanned.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds the entries to the summary the scan has made for the user. The
+     * first entries replace the summary which was in the cache when the scan
+     * started. A summary which has been replaced during the scan, by
+     * {@link #getSummary(User)} or by the eviction, is not changed.
+     */
+    private void merge(Integer userId, List<ExpiringEntry> userEntries, LocalDate today,
+            Function<Integer, String> versions, Map<Integer, ExpirySummary> previous,
+            Map<Integer, WeakReference<ExpirySummary>> scanned) {
+        ExpirySummary summary;
+        boolean replaced;
+        WeakReference<ExpirySummary> made = scanned.get(userId);
+        if (made == null) {
+            summary = new ExpirySummary(today, versions.apply(userId), userEntries);
+            building.add(userId);
+            ExpirySummary current = previous.get(userId);
+            replaced = current == null
+                    ? summaries.asMap().putIfAbsent(userId, summary) == null
+                    : summaries.asMap().replace(userId, current, summary);
+            if (!replaced) {
+                building.remove(userId);
+            }
+        } else {
+            ExpirySummary last = made.get();
+            if (last == null) {
+                return;
+            }
+            List<ExpiringEntry> entries = new ArrayList<>(last.getEntries());
+            entries.addAll(userEntries);
+            summary = new ExpirySummary(today, last.getVersion(), entries);
+            replaced = summaries.asMap().replace(userId, last, summary);
+        }
+        //A user whose summary is not the scanned one is skipped till the end of the scan
+        scanned.put(userId, replaced ? new WeakReference<>(summary) : new WeakReference<>(null));
+    }
+
+    /**
+     * Retrieves the summary of the user. Uses the result of the last scan if
+     * the entries of the user have not changed since.
+     *
+     * @param user must not be null
+     * @return a summary
+     */
+    public ExpirySummary getSummary(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("The user parameter is null.");
+        }
+        LocalDate today = LocalDate.now();
+        //The version is read before the entries, so a concurrent change makes the summary outdated
+        String version = vaultCache.getVersion(user.getId());
+        ExpirySummary summary = summaries.getIfPresent(user.getId());
+        //The summary of a user which is being scanned may be incomplete
+        if (summary == null || building.remove(user.getId())
+                || !summary.getDate().equals(today) || !summary.getVersion().equals(version)) {
+            summary = new ExpirySummary(today, version,
+                    entryRepository.findExpiringByUser(user, today.minusDays(days), today.plusDays(days)));
+            summaries.put(user.getId(), summary);
+        }
+        return summary;
+    }
+}
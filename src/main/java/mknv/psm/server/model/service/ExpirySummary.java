@@ -0,0 +1,56 @@
+package mknv.psm.server.model.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDate;
+import java.util.List;
+import mknv.psm.server.model.domain.ExpiringEntry;
+
+/**
+ * Entries of a user which have expired or will expire soon. The summary is
+ * valid for the date and the version of the vault it was made for.
+ *
+ * @author mknv
+ */
+public class ExpirySummary {
+
+    private final LocalDate date;
+    private final String version;
+    private final List<ExpiringEntry> entries;
+
+    public ExpirySummary(LocalDate date, String version, List<ExpiringEntry> entries) {
+        this.date = date;
+        this.version = version;
+        this.entries = entries;
+    }
+
+    /**
+     * Retrieves the number of entries which have already expired.
+     *
+     * @return a number of entries
+     */
+    public long getExpired() {
+        return entries.stream().filter(e -> e.getDaysLeft() < 0).count();
+    }
+
+    /**
+     * Retrieves the number of entries which have not expired yet.
+     *
+     * @return a number of entries
+     */
+    public long getExpiring() {
+        return entries.size() - getExpired();
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    @JsonIgnore
+    public String getVersion() {
+        return version;
+    }
+
+    public List<ExpiringEntry> getEntries() {
+        return entries;
+    }
+}
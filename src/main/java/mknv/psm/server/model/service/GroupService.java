@@ -0,0 +1,54 @@
+package mknv.psm.server.model.service;
+
+import java.util.Collections;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+/**
+ * Deletes groups together with moving their entries. The entries are moved by
+ * a single update statement and the group is deleted by a single delete
+ * statement in the same transaction, the entries are not loaded.
+ *
+ * @author mknv
+ */
+@Service
+public class GroupService {
+
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private VaultChangePublisher vaultChangePublisher;
+
+    /**
+     * Moves the entries of the group to the target group and deletes the
+     * group. With a target group this merges the group into the target.
+     *
+     * @param user the owner of the group, must not be null
+     * @param id a group id
+     * @param target a group of the user other than the deleted one, null to
+     * remove the entries from the group
+     * @return a number of deleted groups, 0 if the group is not found or
+     * belongs to another user. Nothing is changed in this case.
+     */
+    @Transactional
+    public int deleteAndMoveEntries(User user, Integer id, Group target) {
+        entryRepository.updateGroupByGroupIdAndUser(id, target, user);
+        if (groupRepository.deleteByIdAndUser(id, user) == 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return 0;
+        }
+        //The moved entries are not published one by one: the clients reload the entries on a group
+        //change, and the change feed sees them by the change_txid column.
+        vaultChangePublisher.bulkChanged(user.getId(), VaultChange.Type.GROUP, Collections.singletonList(id),
+                VaultChange.Operation.DELETED);
+        return 1;
+    }
+}
@@ -0,0 +1,64 @@
+package mknv.psm.server.model.service;
+
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes the tombstones of deleted entries and groups which are older than
+ * the retention period. A client which has not synced for longer than the
+ * period gets the full list of entries and groups.
+ *
+ * @author mknv
+ */
+@Component
+@ConfigurationProperties(prefix = "changes.tombstones")
+public class TombstoneCleaner {
+
+    private static final Logger log = LoggerFactory.getLogger(TombstoneCleaner.class);
+
+    @Autowired
+    private ChangeService changeService;
+
+    private boolean enabled = true;
+    private Duration retention = Duration.ofDays(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${changes.tombstones.interval:PT1H}",
+            initialDelayString = "${changes.tombstones.initial-delay:PT5M}")
+    public void scheduledClean() {
+        if (enabled) {
+            clean();
+        }
+    }
+
+    /**
+     * Removes the tombstones older than the retention period.
+     *
+     * @return the number of removed tombstones
+     */
+    public int clean() {
+        int count = changeService.deleteTombstones(retention);
+        log.info("{} tombstones older than {} removed", count, retention);
+        return count;
+    }
+}
@@ -0,0 +1,179 @@
+package mknv.psm.server.model.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps entries and groups of a user in memory. Entries are kept as list
+ * items, without passwords. If the cache is disabled, every call goes to the database.
+ *
+ * @author mknv
+ */
+@Component
+@ConfigurationProperties(prefix = "vault.cache")
+public class VaultCache {
+
+    /**
+     * Entries and groups of one user.
+     */
+    private static class Vault {
+
+        private final List<EntryListItem> entries;
+        private final List<Group> groups;
+
+        Vault(List<EntryListItem> entries, List<Group> groups) {
+            this.entries = entries;
+            this.groups = groups;
+        }
+    }
+
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+
+    private boolean enabled;
+    private long maximumSize = 1000;
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+    private Cache<Integer, Vault> cache;
+    //The versions are not reset by the eviction of the cache. The epoch makes them unique across restarts.
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * Retrieves a list of entry views by user. Sorts the result by name.
+     *
+     * @param user a user
+     * @return a list of entry views
+     */
+    public List<EntryListItem> getEntries(User user) {
+        if (!enabled) {
+            return entryRepository.findListItemsByUser(user);
+        }
+        return getVault(user).entries;
+    }
+
+    /**
+     * Retrieves a list of groups by user. Sorts the result by name.
+     *
+     * @param user a user
+     * @return a list of groups
+     */
+    public List<Group> getGroups(User user) {
+        if (!enabled) {
+            return groupRepository.findByUser(user);
+        }
+        return getVault(user).groups;
+    }
+
+    /**
+     * Retrieves the version of entries and groups of the user. The version
+     * changes on every eviction, so it may be used as an entity tag. Works if
+     * the cache is disabled as well.
+     *
+     * @param userId a user id
+     * @return a version
+     */
+    public String getVersion(Integer userId) {
+        return epoch + "-" + userId + "-" + versions.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Retrieves the current versions of all users. Used to read the versions
+     * before a query of entries of many users.
+     *
+     * @return a function which returns the version of a user at the time of
+     * this call
+     */
+    public Function<Integer, String> getVersions() {
+        Map<Integer, Long> snapshot = new HashMap<>(versions);
+        return userId -> epoch + "-" + userId + "-" + snapshot.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Removes entries and groups of the user from the cache and changes the
+     * version. If a transaction is active, does it after the transaction is
+     * completed as well, so a version read before the commit is not kept for
+     * the new data.
+     *
+     * @param userId a user id
+     */
+    public void evict(Integer userId) {
+        invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private void invalidate(Integer userId) {
+        cache.invalidate(userId);
+        versions.merge(userId, 1L, Long::sum);
+    }
+
+    private Vault getVault(User user) {
+        return cache.get(user.getId(), userId -> {
+            List<EntryListItem> entries = entryRepository.findListItemsByUser(user);
+            List<Group> groups = groupRepository.findByUser(user).stream()
+                    .map(g -> new Group(g.getId(), g.getName(), user))
+                    .collect(Collectors.toList());
+            return new Vault(Collections.unmodifiableList(entries), Collections.unmodifiableList(groups));
+        });
+    }
+}
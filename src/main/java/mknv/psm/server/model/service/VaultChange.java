@@ -0,0 +1,64 @@
+package mknv.psm.server.model.service;
+
+import java.util.Objects;
+
+/**
+ * A notification that an entry or a group has been saved or deleted. Carries
+ * only the id, the data are fetched by the client if needed.
+ *
+ * @author mknv
+ */
+public class VaultChange {
+
+    public enum Type {
+        ENTRY, GROUP
+    }
+
+    public enum Operation {
+        SAVED, DELETED
+    }
+
+    private final Type type;
+    private final Integer id;
+    private final Operation operation;
+
+    public VaultChange(Type type, Integer id, Operation operation) {
+        this.type = type;
+        this.id = id;
+        this.operation = operation;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id, operation);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final VaultChange other = (VaultChange) obj;
+        return type == other.type && Objects.equals(id, other.id) && operation == other.operation;
+    }
+
+    @Override
+    public String toString() {
+        return "VaultChange{" + "type=" + type + ", id=" + id + ", operation=" + operation + '}';
+    }
+}
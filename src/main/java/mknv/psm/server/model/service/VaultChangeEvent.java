@@ -0,0 +1,27 @@
+package mknv.psm.server.model.service;
+
+import java.util.List;
+
+/**
+ * Changes of entries and groups of a user made by one committed transaction.
+ *
+ * @author mknv
+ */
+public class VaultChangeEvent {
+
+    private final Integer userId;
+    private final List<VaultChange> changes;
+
+    public VaultChangeEvent(Integer userId, List<VaultChange> changes) {
+        this.userId = userId;
+        this.changes = changes;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public List<VaultChange> getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,89 @@
+package mknv.psm.server.model.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes {@link VaultChangeEvent}s. The changes made in a transaction are
+ * collected until the transaction is committed and published once per user,
+ * nothing is published on rollback. Without a transaction a change is
+ * published at once.
+ *
+ * @author mknv
+ */
+@Component
+public class VaultChangePublisher {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private VaultCache vaultCache;
+
+    /**
+     * Publishes a change of an entry or a group of the user.
+     *
+     * @param userId a user id
+     * @param change a change
+     */
+    public void publish(Integer userId, VaultChange change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new VaultChangeEvent(userId, Collections.singletonList(change)));
+            return;
+        }
+        PendingChanges pendingChanges = (PendingChanges) TransactionSynchronizationManager.getResource(PendingChanges.class);
+        if (pendingChanges == null) {
+            pendingChanges = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(PendingChanges.class, pendingChanges);
+            TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+        }
+        pendingChanges.add(userId, change);
+    }
+
+    /**
+     * Evicts the cached vault of the user and publishes the changes of the
+     * entries or groups. Used after the bulk statements, which do not call the
+     * entity listeners.
+     *
+     * @param userId a user id
+     * @param type the type of the changed objects
+     * @param ids ids of the changed objects
+     * @param operation the operation applied to the objects
+     */
+    public void bulkChanged(Integer userId, VaultChange.Type type, Collection<Integer> ids,
+            VaultChange.Operation operation) {
+        vaultCache.evict(userId);
+        ids.forEach(id -> publish(userId, new VaultChange(type, id, operation)));
+    }
+
+    /**
+     * Changes of the current transaction grouped by user.
+     */
+    private class PendingChanges extends TransactionSynchronizationAdapter {
+
+        private final Map<Integer, Set<VaultChange>> changes = new LinkedHashMap<>();
+
+        void add(Integer userId, VaultChange change) {
+            changes.computeIfAbsent(userId, id -> new LinkedHashSet<>()).add(change);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PendingChanges.class);
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                changes.forEach((userId, userChanges) -> eventPublisher.publishEvent(
+                        new VaultChangeEvent(userId, new ArrayList<>(userChanges))));
+            }
+        }
+    }
+}
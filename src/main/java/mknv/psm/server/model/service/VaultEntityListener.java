@@ -0,0 +1,105 @@
+package mknv.psm.server.model.service;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.Group;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts the vault of the user from the cache and publishes a change when an
+ * entry or a group is saved or deleted. The listener is registered in
+ * Hibernate, so the domain classes do not depend on the services. Bulk
+ * statements do not call the listener, the changes made by them are
+ * published by the caller. So are the changes made while the listener is
+ * suspended.
+ *
+ * @author mknv
+ */
+@Component
+public class VaultEntityListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    @Autowired
+    private transient EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private transient VaultCache vaultCache;
+    @Autowired
+    private transient VaultChangePublisher vaultChangePublisher;
+    private final transient ThreadLocal<Boolean> suspended = new ThreadLocal<>();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * Runs the action without evicting and publishing the changes of every
+     * entity. Used to save many entities at once, the caller publishes the
+     * changes afterwards.
+     *
+     * @param action an action which saves entities in the current thread
+     */
+    public void runSuspended(Runnable action) {
+        suspended.set(Boolean.TRUE);
+        try {
+            action.run();
+        } finally {
+            suspended.remove();
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity(), VaultChange.Operation.SAVED);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity(), VaultChange.Operation.SAVED);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity(), VaultChange.Operation.DELETED);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void changed(Object entity, VaultChange.Operation operation) {
+        if (suspended.get() != null) {
+            return;
+        }
+        if (entity instanceof Entry) {
+            Entry entry = (Entry) entity;
+            vaultCache.evict(entry.getUser().getId());
+            vaultChangePublisher.publish(entry.getUser().getId(),
+                    new VaultChange(VaultChange.Type.ENTRY, entry.getId(), operation));
+        } else if (entity instanceof Group) {
+            Group group = (Group) entity;
+            vaultCache.evict(group.getUser().getId());
+            vaultChangePublisher.publish(group.getUser().getId(),
+                    new VaultChange(VaultChange.Type.GROUP, group.getId(), operation));
+        }
+    }
+}
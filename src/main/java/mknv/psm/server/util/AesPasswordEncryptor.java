@@ -1,11 +1,25 @@
 package mknv.psm.server.util;
 
+import java.security.GeneralSecurityException;
+import javax.annotation.PostConstruct;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.security.crypto.encrypt.Encryptors;
-import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.security.crypto.codec.Utf8;
+import org.springframework.security.crypto.keygen.BytesKeyGenerator;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.security.crypto.util.EncodingUtils;
 import org.springframework.stereotype.Component;
 
 /**
+ * Encrypts passwords using 256 bit AES in GCM mode. The output format is the
+ * same as of {@code Encryptors.delux(key, salt)}, but the key is derived only
+ * once and every thread reuses its own cipher instance.
  *
  * @author mknv
  */
@@ -13,9 +27,20 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties(prefix = "password.encryptor")
 public class AesPasswordEncryptor implements PasswordEncryptor {
 
+    private static final String KEY_ALGORITHM = "PBKDF2WithHmacSHA1";
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int KEY_ITERATIONS = 1024;
+    private static final int KEY_LENGTH = 256;
+    private static final int IV_LENGTH = 16;
+    private static final int TAG_LENGTH = 128;
+
     private String key;
     private String salt;
 
+    private final BytesKeyGenerator ivGenerator = KeyGenerators.secureRandom(IV_LENGTH);
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(AesPasswordEncryptor::newCipher);
+    private SecretKey secretKey;
+
     public String getKey() {
         return key;
     }
@@ -32,11 +57,32 @@ public class AesPasswordEncryptor implements PasswordEncryptor {
         this.salt = salt;
     }
 
+    /**
+     * Derives the secret key from the key and salt properties. Must be called
+     * after the properties are set.
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance(KEY_ALGORITHM);
+            PBEKeySpec keySpec = new PBEKeySpec(key.toCharArray(), Hex.decode(salt), KEY_ITERATIONS, KEY_LENGTH);
+            secretKey = new SecretKeySpec(factory.generateSecret(keySpec).getEncoded(), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to derive the secret key.", e);
+        }
+    }
+
     @Override
     public String encrypt(String rawPassword) {
-        TextEncryptor encryptor = Encryptors.delux(key, salt);
-        String result = encryptor.encrypt(rawPassword);
-        return result;
+        byte[] iv = ivGenerator.generateKey();
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+            byte[] encrypted = cipher.doFinal(Utf8.encode(rawPassword));
+            return new String(Hex.encode(EncodingUtils.concatenate(iv, encrypted)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt the password.", e);
+        }
     }
 
     @Override
@@ -44,7 +90,22 @@ public class AesPasswordEncryptor implements PasswordEncryptor {
         if (encryptedPassword == null) {
             return "";
         }
-        TextEncryptor decryptor = Encryptors.delux(key, salt);
-        return decryptor.decrypt(encryptedPassword);
+        byte[] bytes = Hex.decode(encryptedPassword);
+        byte[] iv = EncodingUtils.subArray(bytes, 0, IV_LENGTH);
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+            return Utf8.decode(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to decrypt the password.", e);
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(CIPHER_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create a cipher.", e);
+        }
     }
 }
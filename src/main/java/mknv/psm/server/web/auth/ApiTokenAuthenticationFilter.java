@@ -0,0 +1,75 @@
+package mknv.psm.server.web.auth;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Authenticates requests with the Authorization: Bearer header. Requests
+ * without this header are passed to the next filters unchanged. Requests of
+ * a new token are not authenticated by a token, so a stolen token can not be
+ * renewed without the credentials.
+ *
+ * @author mknv
+ */
+public class ApiTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger("security");
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final RequestMatcher TOKEN_REQUEST = new AntPathRequestMatcher("/api/token");
+    private static final String TOKEN_AUTHENTICATED = ApiTokenAuthenticationFilter.class.getName() + ".AUTHENTICATED";
+
+    private final ApiTokenService apiTokenService;
+
+    public ApiTokenAuthenticationFilter(ApiTokenService apiTokenService) {
+        this.apiTokenService = apiTokenService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return TOKEN_REQUEST.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        UsernamePasswordAuthenticationToken authentication
+                = apiTokenService.validate(header.substring(BEARER_PREFIX.length()).trim());
+        if (authentication == null) {
+            log.info("Token authentication failed. IP: {}", request.getRemoteAddr());
+            SecurityContextHolder.clearContext();
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        request.setAttribute(TOKEN_AUTHENTICATED, Boolean.TRUE);
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Checks if the request has been authenticated by a bearer token. Such
+     * clients are stateless and must not get an http session.
+     *
+     * @param request a request
+     * @return true if the request has been authenticated by a token
+     */
+    public static boolean isTokenAuthenticated(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(TOKEN_AUTHENTICATED));
+    }
+}
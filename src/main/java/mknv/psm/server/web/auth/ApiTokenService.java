@@ -0,0 +1,150 @@
+package mknv.psm.server.web.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.stereotype.Component;
+
+/**
+ * Issues and validates signed bearer tokens for the REST API. A token has the
+ * form payload.signature, where the payload contains the user id, roles, issue
+ * and expiration times and the user name, and the signature is HMAC-SHA256 of
+ * the payload. If the secret is not set, a random one is generated at startup
+ * and all tokens become invalid after a restart. Revocations are kept in
+ * memory for the lifetime of a token: the tokens issued before a revocation
+ * have expired after that time.
+ *
+ * @author mknv
+ */
+@Component
+@ConfigurationProperties(prefix = "api.token")
+public class ApiTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private String secret;
+    private Duration expiration = Duration.ofHours(1);
+    private SecretKeySpec key;
+    //User id - time of the last revocation in milliseconds
+    private Cache<Integer, Long> revocations;
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+
+    public Duration getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(Duration expiration) {
+        this.expiration = expiration;
+    }
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = secret == null || secret.isEmpty()
+                ? KeyGenerators.secureRandom(32).generateKey()
+                : secret.getBytes(StandardCharsets.UTF_8);
+        key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        //A minute more than the lifetime, so a revocation outlives the tokens it applies to
+        revocations = Caffeine.newBuilder()
+                .expireAfterWrite(expiration.plusMinutes(1))
+                .build();
+    }
+
+    /**
+     * Issues a new token.
+     *
+     * @param principal an authenticated user
+     * @param authorities authorities of the user
+     * @return a token
+     */
+    public String issue(AuthenticatedUser principal, Collection<? extends GrantedAuthority> authorities) {
+        long issuedAt = System.currentTimeMillis();
+        long expiresAt = issuedAt + expiration.toMillis();
+        String roles = authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        String payload = principal.getId() + ":" + issuedAt + ":" + expiresAt + ":" + roles + ":" + principal.getName();
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    /**
+     * Validates the token.
+     *
+     * @param token a token
+     * @return an authentication or null if the token is malformed, has a
+     * wrong signature, is expired or revoked
+     */
+    public UsernamePasswordAuthenticationToken validate(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        String encodedPayload = token.substring(0, dot);
+        try {
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                return null;
+            }
+            String[] parts = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8).split(":", 5);
+            Integer userId = Integer.valueOf(parts[0]);
+            long issuedAt = Long.parseLong(parts[1]);
+            long expiresAt = Long.parseLong(parts[2]);
+            if (expiresAt < System.currentTimeMillis() || isRevoked(userId, issuedAt)) {
+                return null;
+            }
+            List<GrantedAuthority> authorities = AuthorityUtils.commaSeparatedStringToAuthorityList(parts[3]);
+            return new UsernamePasswordAuthenticationToken(new AuthenticatedUser(userId, parts[4]), null, authorities);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Revokes all tokens of the user issued before this moment. Must be called
+     * when the user is changed or deleted.
+     *
+     * @param userId a user id
+     */
+    public void revoke(Integer userId) {
+        revocations.put(userId, System.currentTimeMillis());
+    }
+
+    private boolean isRevoked(Integer userId, long issuedAt) {
+        Long revokedAt = revocations.getIfPresent(userId);
+        return revokedAt != null && issuedAt <= revokedAt;
+    }
+
+    private byte[] sign(String encodedPayload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign the token.", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package mknv.psm.server.web.auth;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.Objects;
+
+/**
+ * The principal of an authenticated user. Carries the user id, so the user
+ * does not have to be queried by name on every request.
+ *
+ * @author mknv
+ */
+public class AuthenticatedUser implements Principal, Serializable {
+
+    private static final long serialVersionUID = 4113850829120736427L;
+
+    private final Integer id;
+    private final String name;
+
+    public AuthenticatedUser(Integer id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 3;
+        hash = 53 * hash + Objects.hashCode(this.id);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final AuthenticatedUser other = (AuthenticatedUser) obj;
+        if (!Objects.equals(this.id, other.id)) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{" + "id=" + id + ", name=" + name + '}';
+    }
+}
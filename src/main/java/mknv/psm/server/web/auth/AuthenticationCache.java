@@ -0,0 +1,160 @@
+package mknv.psm.server.web.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps results of successful authentications for a short time, so the
+ * password encoder is not called on every request of stateless clients. The
+ * cache is keyed by HMAC-SHA256 of the credentials with a random key generated
+ * at startup, raw passwords are not kept in memory. Every invalidation
+ * increments a generation. An authentication which has started before an
+ * invalidation does not put its result, so the old credentials are not cached
+ * again.
+ *
+ * @author mknv
+ */
+@Component
+@ConfigurationProperties(prefix = "authentication.cache")
+public class AuthenticationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * A principal and authorities of a successful authentication.
+     */
+    public static class Result {
+
+        private final AuthenticatedUser principal;
+        private final List<GrantedAuthority> authorities;
+
+        public Result(AuthenticatedUser principal, List<GrantedAuthority> authorities) {
+            this.principal = principal;
+            this.authorities = authorities;
+        }
+
+        public AuthenticatedUser getPrincipal() {
+            return principal;
+        }
+
+        public List<GrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+    }
+
+    private boolean enabled = true;
+    private long maximumSize = 1000;
+    private Duration expireAfterWrite = Duration.ofMinutes(1);
+    private final SecretKeySpec hmacKey = new SecretKeySpec(KeyGenerators.secureRandom(32).generateKey(), HMAC_ALGORITHM);
+    private Cache<String, Result> cache;
+    //One counter for all users: invalidations are rare, and they only make the running authentications skip the cache
+    private long generation;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * Retrieves a result of the previous authentication with the same
+     * credentials.
+     *
+     * @param username a user name
+     * @param password a raw password
+     * @return a result or null if not found
+     */
+    public Result get(String username, String password) {
+        if (!enabled) {
+            return null;
+        }
+        return cache.getIfPresent(key(username, password));
+    }
+
+    /**
+     * Returns the current generation. Must be read before the user is loaded
+     * for an authentication.
+     *
+     * @return a generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Saves a result of a successful authentication. Does nothing if any user
+     * has been invalidated since the generation was read.
+     *
+     * @param username a user name
+     * @param password a raw password
+     * @param result a result
+     * @param generation the generation read before the authentication
+     */
+    public synchronized void put(String username, String password, Result result, long generation) {
+        if (enabled && generation == this.generation) {
+            cache.put(key(username, password), result);
+        }
+    }
+
+    /**
+     * Removes all results of the user. Must be called when the user is
+     * changed or deleted.
+     *
+     * @param userId a user id
+     */
+    public synchronized void invalidate(Integer userId) {
+        generation++;
+        cache.asMap().values().removeIf(r -> r.getPrincipal().getId().equals(userId));
+    }
+
+    private String key(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(password.getBytes(StandardCharsets.UTF_8));
+            return new String(Hex.encode(mac.doFinal()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute the cache key.", e);
+        }
+    }
+}
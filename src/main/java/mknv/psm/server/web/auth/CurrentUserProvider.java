@@ -0,0 +1,36 @@
+package mknv.psm.server.web.auth;
+
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * @author mknv
+ */
+@Component
+public class CurrentUserProvider {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Returns the user of the authentication. If the principal is an
+     * AuthenticatedUser, returns a user with the id and name of the principal
+     * without querying the database. The returned user may be used as a
+     * reference only, it has no password and roles.
+     *
+     * @param authentication an authentication
+     * @return a user or null if no users found
+     */
+    public User getUser(Authentication authentication) {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof AuthenticatedUser) {
+            AuthenticatedUser authenticatedUser = (AuthenticatedUser) principal;
+            return new User(authenticatedUser.getId(), authenticatedUser.getName(), null);
+        }
+        return userRepository.findByName(authentication.getName());
+    }
+}
@@ -31,11 +31,19 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
     private PasswordEncoder passwordEncoder;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private AuthenticationCache authenticationCache;
 
     @Override
     public Authentication authenticate(Authentication authentication) {
         String username = authentication.getName();
         String password = authentication.getCredentials().toString();
+        AuthenticationCache.Result cachedResult = authenticationCache.get(username, password);
+        if (cachedResult != null) {
+            return new UsernamePasswordAuthenticationToken(cachedResult.getPrincipal(), password,
+                    cachedResult.getAuthorities());
+        }
+        long generation = authenticationCache.getGeneration();
         User user = userRepository.findByNameFetchRoles(username);
         if (user == null || !passwordEncoder.matches(password, user.getPassword())) {
             WebAuthenticationDetails details = (WebAuthenticationDetails) authentication.getDetails();
@@ -46,7 +54,10 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
         for (Role role : user.getRoles()) {
             authorities.add(new SimpleGrantedAuthority(role.getName()));
         }
-        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, password, authorities);
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getName());
+        authenticationCache.put(username, password, new AuthenticationCache.Result(principal, authorities),
+                generation);
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(principal, password, authorities);
         return auth;
     }
 
@@ -1,7 +1,9 @@
 package mknv.psm.server.web.controller;
 
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.propertyeditors.StringTrimmerEditor;
@@ -21,10 +23,14 @@ import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.User;
 import mknv.psm.server.model.repository.EntryRepository;
 import mknv.psm.server.model.repository.GroupRepository;
-import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.model.service.VaultCache;
+import mknv.psm.server.model.service.VaultChange;
+import mknv.psm.server.model.service.VaultChangePublisher;
 import mknv.psm.server.util.PasswordEncryptor;
 import mknv.psm.server.web.exception.ControllerSecurityException;
 import mknv.psm.server.web.exception.EntityNotFoundException;
+import mknv.psm.server.web.search.EntrySearchSession;
+import mknv.psm.server.web.auth.CurrentUserProvider;
 
 /**
  *
@@ -38,9 +44,13 @@ public class EntryController {
     @Autowired
     private GroupRepository groupRepository;
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserProvider currentUserProvider;
     @Autowired
     private PasswordEncryptor passwordEncryptor;
+    @Autowired
+    private VaultCache vaultCache;
+    @Autowired
+    private VaultChangePublisher vaultChangePublisher;
 
     @InitBinder
     public void init(WebDataBinder binder) {
@@ -49,8 +59,8 @@ public class EntryController {
 
     @ModelAttribute("groups")
     public List<Group> groups(Authentication authentication) {
-        User currentUser = userRepository.findByName(authentication.getName());
-        return groupRepository.findByUser(currentUser);
+        User currentUser = currentUserProvider.getUser(authentication);
+        return vaultCache.getGroups(currentUser);
     }
 
     @GetMapping(value = {"/", "/entries"})
@@ -83,38 +93,14 @@ public class EntryController {
             BindingResult bindingResult,
             @RequestParam(name = "remove-password-validity", required = false) String removePasswordValidity,
             @RequestParam(name = "password-validity", required = false) Integer passwordValidity,
-            Authentication authentication) {
+            Authentication authentication, HttpServletRequest request) {
         if (bindingResult.hasErrors()) {
             return "entries/edit";
         }
 
-        User currentUser = userRepository.findByName(authentication.getName());
+        User currentUser = currentUserProvider.getUser(authentication);
         entry.setUser(currentUser);
 
-        //If the entry is existing, check that it belongs to the logged user.
-        //Otherwise throw a ControllerSecurityException.
-        if (entry.getId() != null) {
-            Entry existingEntry = entryRepository.findByIdFetchAll(entry.getId());
-            if (existingEntry == null) {
-                throw new EntityNotFoundException(Entry.class, entry.getId());
-            }
-            if (!existingEntry.getUser().equals(currentUser)) {
-                throw new ControllerSecurityException();
-            }
-        }
-
-        //If a group is not null, check if this group belongs to the current user.
-        //Otherwise throw a ControllerSecurityException.
-        if (entry.getGroup() != null) {
-            Group existingGroup = groupRepository.findByIdFetchUser(entry.getGroup().getId());
-            if (existingGroup == null) {
-                throw new EntityNotFoundException(Group.class, entry.getGroup().getId());
-            }
-            if (!existingGroup.getUser().equals(currentUser)) {
-                throw new ControllerSecurityException();
-            }
-        }
-
         //Encrypt a password if it is not null
         if (entry.getPassword() != null) {
             String encryptedPassword = passwordEncryptor.encrypt(entry.getPassword());
@@ -131,7 +117,43 @@ public class EntryController {
                 entry.setExpiredDate(expiredDate);
             }
         }
-        entryRepository.save(entry);
+
+        if (entry.getId() == null) {
+            //If a group is not null, check if this group belongs to the logged user.
+            //Otherwise throw a ControllerSecurityException.
+            checkGroup(entry.getGroup(), currentUser);
+            entryRepository.save(entry);
+        } else {
+            //The ownership of the entry and the group is checked by the update statement.
+            //The entry is loaded only to find out why nothing has been updated.
+            if (entryRepository.updateByUser(entry, currentUser) == 0) {
+                Entry existingEntry = entryRepository.findByIdFetchAll(entry.getId());
+                if (existingEntry != null && !existingEntry.getUser().equals(currentUser)) {
+                    throw new ControllerSecurityException();
+                }
+                if (existingEntry != null) {
+                    checkGroup(entry.getGroup(), currentUser);
+                }
+                throw new EntityNotFoundException(Entry.class, entry.getId());
+            }
+            //The update statement does not call the entity listeners
+            vaultChangePublisher.bulkChanged(currentUser.getId(), VaultChange.Type.ENTRY,
+                    Collections.singletonList(entry.getId()), VaultChange.Operation.SAVED);
+        }
+        EntrySearchSession.clear(request);
         return "redirect:/entries";
     }
+
+    private void checkGroup(Group group, User currentUser) {
+        if (group == null) {
+            return;
+        }
+        Group existingGroup = groupRepository.findByIdFetchUser(group.getId());
+        if (existingGroup == null) {
+            throw new EntityNotFoundException(Group.class, group.getId());
+        }
+        if (!existingGroup.getUser().equals(currentUser)) {
+            throw new ControllerSecurityException();
+        }
+    }
 }
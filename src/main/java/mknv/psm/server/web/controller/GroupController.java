@@ -5,6 +5,7 @@ import mknv.psm.server.model.domain.User;
 import mknv.psm.server.model.repository.GroupRepository;
 import mknv.psm.server.web.exception.ControllerSecurityException;
 import mknv.psm.server.web.exception.EntityNotFoundException;
+import java.util.Collections;
 import java.util.List;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +22,12 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import mknv.psm.server.model.repository.UserRepository;
+import org.springframework.web.bind.annotation.RequestParam;
+import mknv.psm.server.model.service.GroupService;
+import mknv.psm.server.model.service.VaultCache;
+import mknv.psm.server.model.service.VaultChange;
+import mknv.psm.server.model.service.VaultChangePublisher;
+import mknv.psm.server.web.auth.CurrentUserProvider;
 
 /**
  *
@@ -33,9 +39,15 @@ public class GroupController {
     @Autowired
     private GroupRepository groupRepository;
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserProvider currentUserProvider;
     @Autowired
     private MessageSource messageSource;
+    @Autowired
+    private VaultCache vaultCache;
+    @Autowired
+    private VaultChangePublisher vaultChangePublisher;
+    @Autowired
+    private GroupService groupService;
 
     @InitBinder
     public void init(WebDataBinder binder) {
@@ -44,8 +56,8 @@ public class GroupController {
 
     @ModelAttribute("groups")
     public List<Group> groups(Authentication authentication) {
-        User currentUser = userRepository.findByName(authentication.getName());
-        List<Group> groups = groupRepository.findByUser(currentUser);
+        User currentUser = currentUserProvider.getUser(authentication);
+        List<Group> groups = vaultCache.getGroups(currentUser);
         return groups;
     }
 
@@ -80,22 +92,17 @@ public class GroupController {
         if (bindingResult.hasErrors()) {
             return "groups/edit";
         }
-        User currentUser = userRepository.findByName(authentication.getName());
-
-        //If the group is existing, check that it belongs to the current user.
-        //Otherwise throw a ControllerSecurityException.
-        if (group.getId() != null) {
-            Group existingGroup = groupRepository.findByIdFetchUser(group.getId());
-            if (existingGroup == null) {
-                throw new EntityNotFoundException(Group.class, group.getId());
-            }
-            if (!existingGroup.getUser().equals(currentUser)) {
-                throw new ControllerSecurityException();
-            }
-        }
+        User currentUser = currentUserProvider.getUser(authentication);
         group.setUser(currentUser);
         try {
-            groupRepository.save(group);
+            if (group.getId() == null) {
+                groupRepository.save(group);
+            } else {
+                //The ownership of the group is checked by the update statement
+                int updated = groupRepository.updateNameByIdAndUser(group.getId(), group.getName(), currentUser);
+                checkAffected(updated, group.getId());
+                publish(currentUser, group.getId(), VaultChange.Operation.SAVED);
+            }
         } catch (DataIntegrityViolationException e) {
             model.addAttribute("error", messageSource.getMessage("group.exists", null, null));
             return "groups/edit";
@@ -104,20 +111,71 @@ public class GroupController {
     }
 
     @PostMapping("/groups/delete/{id}")
-    public String delete(@PathVariable("id") Integer id, Model model, Authentication authentication) {
-        Group group = groupRepository.findByIdFetchUser(id);
-        if (group == null) {
-            throw new EntityNotFoundException(Group.class, id);
-        }
-        if (!group.getUser().getName().equals(authentication.getName())) {
-            throw new ControllerSecurityException();
-        }
+    public String delete(@PathVariable("id") Integer id,
+            @RequestParam(name = "move-to", required = false) String moveTo,
+            Model model, Authentication authentication) {
+        User currentUser = currentUserProvider.getUser(authentication);
         try {
-            groupRepository.deleteById(id);
+            if (moveTo == null || moveTo.isEmpty()) {
+                //The ownership of the group is checked by the delete statement
+                checkAffected(groupRepository.deleteByIdAndUser(id, currentUser), id);
+                publish(currentUser, id, VaultChange.Operation.DELETED);
+            } else if (moveTo.equals("empty")) {
+                //Removes the entries from the group
+                checkAffected(groupService.deleteAndMoveEntries(currentUser, id, null), id);
+            } else {
+                //The id of the group the entries are moved to, i.e. the groups are merged
+                int targetId = parseId(moveTo);
+                if (targetId == id) {
+                    //The group can not be merged into itself
+                    model.addAttribute("error", messageSource.getMessage("group.delete.move.same", null, null));
+                    return "groups/list";
+                }
+                checkAffected(groupService.deleteAndMoveEntries(currentUser, id, findTarget(targetId, currentUser)),
+                        id);
+            }
         } catch (DataIntegrityViolationException e) {
             model.addAttribute("error", messageSource.getMessage("group.entries.constraint", null, null));
             return "groups/list";
         }
         return "redirect:/groups";
     }
+
+    private int parseId(String moveTo) {
+        try {
+            return Integer.parseInt(moveTo);
+        } catch (NumberFormatException e) {
+            throw new EntityNotFoundException(Group.class, moveTo);
+        }
+    }
+
+    private Group findTarget(int targetId, User currentUser) {
+        Group target = groupRepository.findByIdFetchUser(targetId);
+        if (target == null) {
+            throw new EntityNotFoundException(Group.class, targetId);
+        }
+        if (!target.getUser().equals(currentUser)) {
+            throw new ControllerSecurityException();
+        }
+        return target;
+    }
+
+    /**
+     * Throws an exception if a statement affected no group. The group is looked
+     * up only in this case to tell a missing group from a foreign one.
+     */
+    private void checkAffected(int affected, Integer id) {
+        if (affected == 0) {
+            if (groupRepository.existsById(id)) {
+                throw new ControllerSecurityException();
+            }
+            throw new EntityNotFoundException(Group.class, id);
+        }
+    }
+
+    //The bulk statements do not call the entity listeners
+    private void publish(User currentUser, Integer id, VaultChange.Operation operation) {
+        vaultChangePublisher.bulkChanged(currentUser.getId(), VaultChange.Type.GROUP, Collections.singletonList(id),
+                operation);
+    }
 }
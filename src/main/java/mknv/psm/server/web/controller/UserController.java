@@ -23,6 +23,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import mknv.psm.server.model.repository.RoleRepository;
 import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.web.auth.ApiTokenService;
+import mknv.psm.server.web.auth.AuthenticationCache;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.Errors;
 import org.springframework.validation.ValidationUtils;
@@ -71,6 +73,10 @@ public class UserController {
     private MessageSource messageSource;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private AuthenticationCache authenticationCache;
+    @Autowired
+    private ApiTokenService apiTokenService;
 
     @InitBinder
     public void init(WebDataBinder binder) {
@@ -148,6 +154,9 @@ public class UserController {
             model.addAttribute("error", messageSource.getMessage("user.exists", null, null));
             return "users/edit";
         }
+        //The password, name or roles may be changed
+        authenticationCache.invalidate(user.getId());
+        apiTokenService.revoke(user.getId());
         return "redirect:/users";
     }
 
@@ -160,6 +169,8 @@ public class UserController {
         }
         try {
             userRepository.deleteById(id);
+            authenticationCache.invalidate(id);
+            apiTokenService.revoke(id);
             //If a user is the current logged user, clears the session and redirects to the default url.
             if (user.get().getName().equals(authentication.getName())) {
                 session.invalidate();
@@ -0,0 +1,37 @@
+package mknv.psm.server.web.controller.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.web.auth.ApiTokenService;
+import mknv.psm.server.web.auth.AuthenticatedUser;
+import mknv.psm.server.web.auth.CurrentUserProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exchanges credentials of the basic authentication for a bearer token.
+ *
+ * @author mknv
+ */
+@RestController
+public class ApiTokenController {
+
+    @Autowired
+    private ApiTokenService apiTokenService;
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+    @PostMapping(value = "/api/token", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> token(Authentication authentication) {
+        User user = currentUserProvider.getUser(authentication);
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getName());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("token", apiTokenService.issue(principal, authentication.getAuthorities()));
+        result.put("expiresIn", apiTokenService.getExpiration().getSeconds());
+        return result;
+    }
+}
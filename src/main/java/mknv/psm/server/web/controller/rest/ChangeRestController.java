@@ -0,0 +1,44 @@
+package mknv.psm.server.web.controller.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.service.ChangeService;
+import mknv.psm.server.model.service.Changes;
+import mknv.psm.server.web.auth.CurrentUserProvider;
+import mknv.psm.server.web.notification.VaultChangeEmitters;
+
+/**
+ *
+ * @author mknv
+ */
+@RestController
+@RequestMapping(value = {"/rest", "/api"}, produces = MediaType.APPLICATION_JSON_VALUE)
+public class ChangeRestController {
+
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+    @Autowired
+    private ChangeService changeService;
+    @Autowired
+    private VaultChangeEmitters vaultChangeEmitters;
+
+    @GetMapping("/changes")
+    public Changes changes(@RequestParam(value = "since", required = false) Long since,
+            Authentication authentication) {
+        User user = currentUserProvider.getUser(authentication);
+        return changeService.getChanges(user, since);
+    }
+
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication authentication) {
+        User user = currentUserProvider.getUser(authentication);
+        return vaultChangeEmitters.subscribe(user.getId());
+    }
+}
@@ -0,0 +1,39 @@
+package mknv.psm.server.web.controller.rest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits of the requests to the entries REST API.
+ *
+ * @author mknv
+ */
+@Component
+@ConfigurationProperties(prefix = "entries.api")
+public class EntryApiLimits {
+
+    /**
+     * The maximum number of passwords decrypted by one request.
+     */
+    private int maximumPasswords = 100;
+    /**
+     * The maximum number of entries changed by one bulk request.
+     */
+    private int maximumBulkIds = 10000;
+
+    public int getMaximumPasswords() {
+        return maximumPasswords;
+    }
+
+    public void setMaximumPasswords(int maximumPasswords) {
+        this.maximumPasswords = maximumPasswords;
+    }
+
+    public int getMaximumBulkIds() {
+        return maximumBulkIds;
+    }
+
+    public void setMaximumBulkIds(int maximumBulkIds) {
+        this.maximumBulkIds = maximumBulkIds;
+    }
+}
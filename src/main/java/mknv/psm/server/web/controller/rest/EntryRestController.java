@@ -1,10 +1,20 @@
 package mknv.psm.server.web.controller.rest;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,7 +22,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
 import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.User;
 import mknv.psm.server.model.repository.EntryRepository;
@@ -20,10 +32,23 @@ import mknv.psm.server.model.repository.GroupRepository;
 import mknv.psm.server.util.PasswordEncryptor;
 import mknv.psm.server.util.PasswordGenerator;
 import mknv.psm.server.util.PasswordType;
+import mknv.psm.server.web.exception.BadRequestException;
 import mknv.psm.server.web.exception.ControllerSecurityException;
 import mknv.psm.server.web.exception.EntityNotFoundException;
-import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.model.service.EntryBulkService;
+import mknv.psm.server.model.service.EntryCursor;
+import mknv.psm.server.model.service.EntryExportService;
+import mknv.psm.server.model.service.EntryImportResult;
+import mknv.psm.server.model.service.EntryImportService;
+import mknv.psm.server.model.service.EntryPage;
 import mknv.psm.server.model.service.EntryService;
+import mknv.psm.server.model.service.ExpiryScanner;
+import mknv.psm.server.model.service.ExpirySummary;
+import mknv.psm.server.model.service.VaultCache;
+import mknv.psm.server.model.service.VaultChange;
+import mknv.psm.server.model.service.VaultChangePublisher;
+import mknv.psm.server.web.search.EntrySearchSession;
+import mknv.psm.server.web.auth.CurrentUserProvider;
 
 /**
  *
@@ -33,6 +58,8 @@ import mknv.psm.server.model.service.EntryService;
 @RequestMapping(value = {"/rest", "/api"}, produces = MediaType.APPLICATION_JSON_VALUE)
 public class EntryRestController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private PasswordGenerator passwordGenerator;
     @Autowired
@@ -43,55 +70,239 @@ public class EntryRestController {
     @Autowired
     private EntryService entryService;
     @Autowired
+    private EntryBulkService entryBulkService;
+    @Autowired
+    private EntryImportService entryImportService;
+    @Autowired
+    private EntryExportService entryExportService;
+    @Autowired
     private GroupRepository groupRepository;
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserProvider currentUserProvider;
+    @Autowired
+    private VaultCache vaultCache;
+    @Autowired
+    private VaultChangePublisher vaultChangePublisher;
+    @Autowired
+    private ExpiryScanner expiryScanner;
+    @Autowired
+    private EntryApiLimits entryApiLimits;
 
     @GetMapping("/entries")
     public ResponseEntity find(
             @RequestParam(value = "name", required = true) String name,
             @RequestParam(value = "group", required = true) String group,
-            Authentication authentication) {
-        User user = userRepository.findByName(authentication.getName());
+            @RequestParam(value = "any-field", defaultValue = "false") boolean anyField,
+            @RequestParam(value = "incremental", defaultValue = "false") boolean incremental,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) EntryCursor after,
+            Authentication authentication, HttpServletRequest request, WebRequest webRequest) {
+        User user = currentUserProvider.getUser(authentication);
+        //The result is not sent again if the entries and groups have not changed. The tag depends
+        //on the date as well, because the days left are computed at the current date.
+        String version = vaultCache.getVersion(user.getId());
+        String etag = "\"" + version + "-" + LocalDate.now() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        //If the limit is set, a page with the cursor of the next page is returned instead of a list
+        Integer pageSize = limit == null ? null : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        //In the incremental mode the previous result kept in the session is used if possible
+        EntrySearchSession searchSession = null;
+        long generation = 0;
+        if (incremental) {
+            searchSession = EntrySearchSession.get(request);
+        } else {
+            //A full search is a refresh. The next incremental searches and pages must not use the previous result.
+            EntrySearchSession.clear(request);
+        }
+        if (searchSession != null) {
+            generation = searchSession.nextGeneration();
+            List<EntryListItem> previousResult = searchSession.find(authentication.getName(), version, group,
+                    name.trim(), anyField);
+            if (previousResult != null) {
+                return ResponseEntity.ok(pageSize == null ? previousResult : toPage(previousResult, after, pageSize));
+            }
+        }
         //The group parameter may be one of next values:
         //all - any group
         //empty - group is null
         //int value - group id
-        if (group.equals("all")) {
-            return ResponseEntity.ok(entryService.find(user, name.trim(), null, false));
-        }
-        if (group.equals("empty")) {
-            return ResponseEntity.ok(entryService.find(user, name.trim(), null, true));
-        }
         Group currentGroup = null;
-        try {
-            int groupId = Integer.parseInt(group);
-            currentGroup = groupRepository.findByIdFetchUser(groupId);
-            if (currentGroup == null) {
-                throw new EntityNotFoundException(Group.class, groupId);
+        boolean isEmptyGroup = group.equals("empty");
+        if (!isEmptyGroup && !group.equals("all")) {
+            try {
+                int groupId = Integer.parseInt(group);
+                currentGroup = groupRepository.findByIdFetchUser(groupId);
+                if (currentGroup == null) {
+                    throw new EntityNotFoundException(Group.class, groupId);
+                }
+                if (!currentGroup.getUser().getName().equals(authentication.getName())) {
+                    throw new ControllerSecurityException();
+                }
+            } catch (NumberFormatException e) {
+                throw new EntityNotFoundException(Group.class, group);
             }
-            if (!currentGroup.getUser().getName().equals(authentication.getName())) {
-                throw new ControllerSecurityException();
+        }
+        //Without the session the keyset pagination is done by the database
+        if (pageSize != null && searchSession == null) {
+            return ResponseEntity.ok(entryService.find(user, name.trim(), currentGroup, isEmptyGroup, anyField,
+                    after, pageSize));
+        }
+        List<EntryListItem> result = entryService.find(user, name.trim(), currentGroup, isEmptyGroup, anyField);
+        if (searchSession != null) {
+            //A newer search has been started in the same session. The result is not needed anymore.
+            if (searchSession.isSuperseded(generation)) {
+                return ResponseEntity.noContent().build();
             }
-        } catch (NumberFormatException e) {
-            throw new EntityNotFoundException(Group.class, group);
+            searchSession.update(authentication.getName(), version, group, name.trim(), anyField, result);
         }
-        return ResponseEntity.ok(entryService.find(user, name.trim(), currentGroup, false));
+        return ResponseEntity.ok(pageSize == null ? result : toPage(result, after, pageSize));
     }
 
     @PostMapping(value = "/entries/delete/{id}")
-    public ResponseEntity delete(@PathVariable("id") Integer id, Authentication authentication) {
-        Entry entry = entryRepository.findByIdFetchAll(id);
-        if (entry == null) {
+    public ResponseEntity delete(@PathVariable("id") Integer id, Authentication authentication,
+            HttpServletRequest request) {
+        User user = currentUserProvider.getUser(authentication);
+        //The ownership of the entry is checked by the delete statement.
+        //The entry is looked up only to find out why nothing has been deleted.
+        if (entryRepository.deleteByIdAndUser(id, user) == 0) {
+            if (entryRepository.existsById(id)) {
+                throw new ControllerSecurityException();
+            }
             throw new EntityNotFoundException(Entry.class, id);
         }
-        if (!entry.getUser().getName().equals(authentication.getName())) {
-            throw new ControllerSecurityException();
-        }
-        entryRepository.delete(entry);
+        //The delete statement does not call the entity listeners
+        vaultChangePublisher.bulkChanged(user.getId(), VaultChange.Type.ENTRY, Collections.singletonList(id),
+                VaultChange.Operation.DELETED);
+        EntrySearchSession.clear(request);
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping(value = "/entries/bulk/move")
+    public Map<String, Integer> bulkMove(@RequestParam("ids") Set<Integer> ids,
+            @RequestParam("group") String group, Authentication authentication, HttpServletRequest request) {
+        checkBulkIds(ids);
+        User user = currentUserProvider.getUser(authentication);
+        //The group parameter may be one of next values:
+        //empty - removes the entries from their groups
+        //int value - group id
+        Group targetGroup = null;
+        if (!group.equals("empty")) {
+            try {
+                int groupId = Integer.parseInt(group);
+                targetGroup = groupRepository.findByIdFetchUser(groupId);
+                if (targetGroup == null) {
+                    throw new EntityNotFoundException(Group.class, groupId);
+                }
+                if (!targetGroup.getUser().equals(user)) {
+                    throw new ControllerSecurityException();
+                }
+            } catch (NumberFormatException e) {
+                throw new EntityNotFoundException(Group.class, group);
+            }
+        }
+        return bulkResult(entryBulkService.move(user, ids, targetGroup), user, ids, request);
+    }
+
+    @PostMapping(value = "/entries/bulk/expired-date")
+    public Map<String, Integer> bulkSetExpiredDate(@RequestParam("ids") Set<Integer> ids,
+            @RequestParam(value = "expired-date", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiredDate,
+            Authentication authentication, HttpServletRequest request) {
+        checkBulkIds(ids);
+        User user = currentUserProvider.getUser(authentication);
+        //Without the expired-date parameter the password validity is removed
+        return bulkResult(entryBulkService.setExpiredDate(user, ids, expiredDate), user, ids, request);
+    }
+
+    @PostMapping(value = "/entries/bulk/delete")
+    public Map<String, Integer> bulkDelete(@RequestParam("ids") Set<Integer> ids,
+            Authentication authentication, HttpServletRequest request) {
+        checkBulkIds(ids);
+        User user = currentUserProvider.getUser(authentication);
+        return bulkResult(entryBulkService.delete(user, ids), user, ids, request);
+    }
+
+    private void checkBulkIds(Set<Integer> ids) {
+        if (ids.isEmpty() || ids.size() > entryApiLimits.getMaximumBulkIds()) {
+            throw new BadRequestException("The number of ids must be from 1 to "
+                    + entryApiLimits.getMaximumBulkIds() + ": " + ids.size());
+        }
+    }
+
+    /**
+     * Returns the number of changed entries. If nothing is changed because
+     * some entries are not found or belong to another user, throws an
+     * EntityNotFoundException with ids of these entries.
+     */
+    private Map<String, Integer> bulkResult(boolean changed, User user, Set<Integer> ids,
+            HttpServletRequest request) {
+        if (!changed) {
+            throw new EntityNotFoundException(Entry.class, entryBulkService.findMissingIds(user, ids));
+        }
+        EntrySearchSession.clear(request);
+        return Collections.singletonMap("count", ids.size());
+    }
+
+    @PostMapping(value = "/entries/import", consumes = "text/csv")
+    public EntryImportResult importCsv(Authentication authentication, HttpServletRequest request) throws IOException {
+        User user = currentUserProvider.getUser(authentication);
+        try {
+            return entryImportService.importCsv(user, request.getInputStream());
+        } finally {
+            EntrySearchSession.clear(request);
+        }
+    }
+
+    @PostMapping(value = "/entries/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public EntryImportResult importJson(Authentication authentication, HttpServletRequest request) throws IOException {
+        User user = currentUserProvider.getUser(authentication);
+        try {
+            return entryImportService.importJson(user, request.getInputStream());
+        } finally {
+            EntrySearchSession.clear(request);
+        }
+    }
+
+    @GetMapping(value = "/entries/export", produces = {"application/x-ndjson", "text/csv"})
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+            Authentication authentication, HttpServletResponse response) throws IOException {
+        User user = currentUserProvider.getUser(authentication);
+        //The format parameter may be one of next values: ndjson, csv
+        EntryExportService.Format exportFormat;
+        if (format.equals("ndjson")) {
+            exportFormat = EntryExportService.Format.NDJSON;
+        } else if (format.equals("csv")) {
+            exportFormat = EntryExportService.Format.CSV;
+        } else {
+            throw new BadRequestException("Unknown export format: " + format);
+        }
+        String extension = exportFormat == EntryExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType((exportFormat == EntryExportService.Format.CSV ? "text/csv" : "application/x-ndjson")
+                + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"entries." + extension + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        entryExportService.export(user, exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * Cuts a page from the list of entries.
+     */
+    private static EntryPage toPage(List<EntryListItem> entries, EntryCursor after, int limit) {
+        return EntryPage.of(entries.stream()
+                .filter(e -> after == null || after.isBefore(e))
+                .sorted(EntryCursor.ORDER)
+                .limit(limit + 1)
+                .collect(Collectors.toList()), limit);
+    }
+
+    @GetMapping("/entries/expiring")
+    public ExpirySummary expiring(Authentication authentication) {
+        User user = currentUserProvider.getUser(authentication);
+        return expiryScanner.getSummary(user);
+    }
+
     @GetMapping(value = "/entries/generate-password")
     public ResponseEntity generatePassword(@RequestParam("length") Integer length, @RequestParam("type") String type) {
         PasswordType passwordType = null;
@@ -119,4 +330,23 @@ public class EntryRestController {
         }
         return Collections.singletonMap("password", password);
     }
+
+    @GetMapping("/entries/getpasswords")
+    public Map<Integer, String> getPasswords(@RequestParam("ids") Set<Integer> ids, Authentication authentication) {
+        if (ids.isEmpty() || ids.size() > entryApiLimits.getMaximumPasswords()) {
+            throw new BadRequestException("The number of ids must be from 1 to "
+                    + entryApiLimits.getMaximumPasswords() + ": " + ids.size());
+        }
+        User user = currentUserProvider.getUser(authentication);
+        List<Entry> entries = entryRepository.findByIdsAndUser(ids, user);
+        //If some entries are not found or belong to another user, throw an EntityNotFoundException
+        if (entries.size() != ids.size()) {
+            Set<Integer> notFoundIds = new HashSet<>(ids);
+            entries.forEach(e -> notFoundIds.remove(e.getId()));
+            throw new EntityNotFoundException(Entry.class, notFoundIds);
+        }
+        return entries.parallelStream()
+                .collect(Collectors.toMap(Entry::getId,
+                        e -> e.getPassword() == null ? "" : passwordEncryptor.decrypt(e.getPassword())));
+    }
 }
@@ -7,10 +7,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.User;
-import mknv.psm.server.model.repository.GroupRepository;
-import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.model.service.VaultCache;
+import mknv.psm.server.web.auth.CurrentUserProvider;
 
 /**
  *
@@ -21,13 +22,17 @@ import mknv.psm.server.model.repository.UserRepository;
 public class GroupRestController {
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserProvider currentUserProvider;
     @Autowired
-    private GroupRepository groupRepository;
+    private VaultCache vaultCache;
 
     @GetMapping("/groups")
-    public List<Group> list(Authentication authentication) {
-        User user = userRepository.findByName(authentication.getName());
-        return groupRepository.findByUser(user);
+    public List<Group> list(Authentication authentication, WebRequest webRequest) {
+        User user = currentUserProvider.getUser(authentication);
+        //The result is not sent again if the entries and groups have not changed
+        if (webRequest.checkNotModified("\"" + vaultCache.getVersion(user.getId()) + "\"")) {
+            return null;
+        }
+        return vaultCache.getGroups(user);
     }
 }
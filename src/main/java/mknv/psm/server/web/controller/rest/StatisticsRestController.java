@@ -0,0 +1,62 @@
+package mknv.psm.server.web.controller.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes hit and miss counts of the Hibernate second-level cache to
+ * administrators. The counts are collected only if
+ * hibernate.generate_statistics is set, otherwise only the disabled flag is
+ * returned.
+ *
+ * @author mknv
+ */
+@RestController
+@RequestMapping(value = {"/rest", "/api"}, produces = MediaType.APPLICATION_JSON_VALUE)
+public class StatisticsRestController {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @GetMapping("/statistics/cache")
+    public Map<String, Object> cache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        //The counters are zero, returning them would look like an unused cache
+        if (!statistics.isStatisticsEnabled()) {
+            return result;
+        }
+        result.put("secondLevelCache", counts(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        result.put("queryCache", counts(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        Map<String, Object> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, counts(region.getHitCount(), region.getMissCount(), region.getPutCount()));
+            }
+        }
+        result.put("regions", regions);
+        return result;
+    }
+
+    private static Map<String, Long> counts(long hits, long misses, long puts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("puts", puts);
+        return result;
+    }
+}
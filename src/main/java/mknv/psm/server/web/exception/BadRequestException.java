@@ -0,0 +1,12 @@
+package mknv.psm.server.web.exception;
+
+/**
+ *
+ * @author mknv
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
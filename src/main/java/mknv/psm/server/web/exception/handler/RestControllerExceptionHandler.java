@@ -1,5 +1,6 @@
 package mknv.psm.server.web.exception.handler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import javax.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import mknv.psm.server.web.exception.BadRequestException;
 import mknv.psm.server.web.exception.ControllerSecurityException;
 import mknv.psm.server.web.exception.EntityNotFoundException;
 import mknv.psm.server.web.exception.ErrorInfo;
@@ -43,7 +45,10 @@ public class RestControllerExceptionHandler {
         return errorInfo;
     }
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    @ExceptionHandler(value = {
+        MethodArgumentTypeMismatchException.class,
+        JsonProcessingException.class,
+        BadRequestException.class})
     public ErrorInfo handleBadRequest(Exception ex, HttpServletRequest request){
         log.info("URL: {}. {}", request.getRequestURL(), ex);
         String message = messageSource.getMessage("error.bad.request", null, null);
@@ -0,0 +1,242 @@
+package mknv.psm.server.web.notification;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import mknv.psm.server.model.service.VaultChange;
+import mknv.psm.server.model.service.VaultChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Keeps the open Server-Sent Events connections of users and pushes the
+ * changes of entries and groups to them. The connections are asynchronous,
+ * no servlet thread is held while a connection is idle. A connection is closed
+ * after the timeout, the browser reconnects automatically.
+ * <p>
+ * The changes are sent by a small pool of threads, so a slow client does not
+ * hold the request which has made the changes. Every connection has a bounded
+ * queue of pending changes. A connection which falls behind is closed, the
+ * browser reconnects and reloads the vault.
+ *
+ * @author mknv
+ */
+@Component
+@ConfigurationProperties(prefix = "vault.notifications")
+public class VaultChangeEmitters {
+
+    private static final Logger log = LoggerFactory.getLogger(VaultChangeEmitters.class);
+
+    //If a transaction has changed more entries, the client is told to reload everything
+    static final int MAX_CHANGES = 100;
+
+    private Duration timeout = Duration.ofMinutes(30);
+    private int maximumPerUser = 10;
+    private int maximumPending = 20;
+    private int sendThreads = 2;
+    private final Map<Integer, List<Connection>> connections = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    /**
+     * An open connection with the changes not sent yet. At most one thread
+     * sends to the connection at a time.
+     */
+    private class Connection {
+
+        private final Integer userId;
+        private final SseEmitter emitter;
+        private final Queue<List<VaultChange>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Connection(Integer userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues the changes and starts sending if no thread sends to the
+         * connection.
+         *
+         * @return false if the queue is full
+         */
+        boolean offer(List<VaultChange> changes) {
+            if (size.incrementAndGet() > maximumPending) {
+                size.decrementAndGet();
+                return false;
+            }
+            pending.add(changes);
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    //The application is shutting down
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void send() {
+            List<VaultChange> changes;
+            while ((changes = pending.poll()) != null) {
+                size.decrementAndGet();
+                try {
+                    //A builder can not be sent twice
+                    emitter.send(changes.size() > MAX_CHANGES
+                            ? SseEmitter.event().name("refresh").data("")
+                            : SseEmitter.event().name("changes").data(changes, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    remove(this);
+                    pending.clear();
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+            sending.set(false);
+            //The changes queued after the last poll and before the flag was cleared
+            if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger number = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "vault-notifications-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getMaximumPerUser() {
+        return maximumPerUser;
+    }
+
+    public void setMaximumPerUser(int maximumPerUser) {
+        this.maximumPerUser = maximumPerUser;
+    }
+
+    public int getMaximumPending() {
+        return maximumPending;
+    }
+
+    public void setMaximumPending(int maximumPending) {
+        this.maximumPending = maximumPending;
+    }
+
+    public int getSendThreads() {
+        return sendThreads;
+    }
+
+    public void setSendThreads(int sendThreads) {
+        this.sendThreads = sendThreads;
+    }
+
+    /**
+     * Opens a new connection of the user. If the user has too many
+     * connections, the oldest one is closed.
+     *
+     * @param userId a user id
+     * @return an emitter to be returned by a controller
+     */
+    public SseEmitter subscribe(Integer userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Connection connection = new Connection(userId, emitter);
+        //The list is changed only inside compute, so a concurrent remove of a completed
+        //connection can not interleave with adding and trimming
+        List<Connection> oldest = new ArrayList<>();
+        connections.compute(userId, (id, list) -> {
+            List<Connection> result = list == null ? new CopyOnWriteArrayList<>() : list;
+            result.add(connection);
+            while (result.size() > maximumPerUser) {
+                oldest.add(result.remove(0));
+            }
+            return result;
+        });
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(connection));
+        //Completed outside of compute, because the completion callback changes the map
+        oldest.forEach(c -> c.emitter.complete());
+        return emitter;
+    }
+
+    /**
+     * Retrieves the number of open connections of the user.
+     *
+     * @param userId a user id
+     * @return a number of connections
+     */
+    public int count(Integer userId) {
+        List<Connection> userConnections = connections.get(userId);
+        return userConnections == null ? 0 : userConnections.size();
+    }
+
+    /**
+     * Queues the changes for all connections of the user and returns without
+     * waiting for them to be sent. A connection that fails or has too many
+     * pending changes is closed.
+     *
+     * @param event changes of a committed transaction
+     */
+    @EventListener
+    public void onChange(VaultChangeEvent event) {
+        List<Connection> userConnections = connections.get(event.getUserId());
+        if (userConnections == null) {
+            return;
+        }
+        for (Connection connection : userConnections) {
+            if (!connection.offer(event.getChanges())) {
+                log.debug("Closing a notification connection of the user {}, it has fallen behind",
+                        event.getUserId());
+                remove(connection);
+                connection.emitter.complete();
+            }
+        }
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (id, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+}
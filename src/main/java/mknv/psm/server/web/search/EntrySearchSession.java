@@ -0,0 +1,151 @@
+package mknv.psm.server.web.search;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.web.auth.ApiTokenAuthenticationFilter;
+
+/**
+ * Keeps the result of the last entry search in the http session. If a new
+ * search extends the previous name, the result is filtered in memory instead
+ * of querying the database. The result is kept with the version of the vault
+ * of the user, so it is not used after the entries or groups are changed in
+ * any session. Every search gets a generation number, so a search superseded
+ * by a newer one may be detected.
+ *
+ * @author mknv
+ */
+public class EntrySearchSession implements Serializable {
+
+    private static final long serialVersionUID = 2984417354310256178L;
+    private static final String ATTRIBUTE_NAME = EntrySearchSession.class.getName();
+    private static final long TIME_TO_LIVE_MILLIS = 30000;
+
+    private final AtomicLong generation = new AtomicLong();
+    private String username;
+    private String version;
+    private String group;
+    private String name;
+    private boolean anyField;
+    private List<EntryListItem> result;
+    private long timestamp;
+
+    /**
+     * Retrieves the search session from the http session. Creates a new one if
+     * it does not exist. The http session itself is not created: the result is
+     * not kept for the stateless clients authenticated by a bearer token.
+     *
+     * @param request a request
+     * @return a search session or null if there is no http session
+     */
+    public static EntrySearchSession get(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null || ApiTokenAuthenticationFilter.isTokenAuthenticated(request)) {
+            return null;
+        }
+        synchronized (session) {
+            EntrySearchSession searchSession = (EntrySearchSession) session.getAttribute(ATTRIBUTE_NAME);
+            if (searchSession == null) {
+                searchSession = new EntrySearchSession();
+                session.setAttribute(ATTRIBUTE_NAME, searchSession);
+            }
+            return searchSession;
+        }
+    }
+
+    /**
+     * Clears the previous search result if the http session exists. Must be
+     * called after entries are changed.
+     *
+     * @param request a request
+     */
+    public static void clear(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.removeAttribute(ATTRIBUTE_NAME);
+        }
+    }
+
+    /**
+     * Starts a new search.
+     *
+     * @return a generation number of the search
+     */
+    public long nextGeneration() {
+        return generation.incrementAndGet();
+    }
+
+    /**
+     * Checks if a newer search has been started.
+     *
+     * @param generation a generation number of the search
+     * @return true if the search is superseded
+     */
+    public boolean isSuperseded(long generation) {
+        return this.generation.get() != generation;
+    }
+
+    /**
+     * Filters the previous result in memory. The same rules as in
+     * {@code EntryService.find} are applied to the name.
+     *
+     * @param username a user name
+     * @param version the current version of the vault of the user
+     * @param group a group parameter of the search
+     * @param name a name parameter of the search
+     * @param anyField an anyField parameter of the search
+     * @return a list of entries or null if the previous result can not be used
+     */
+    public synchronized List<EntryListItem> find(String username, String version, String group, String name,
+            boolean anyField) {
+        if (result == null
+                || System.currentTimeMillis() - timestamp > TIME_TO_LIVE_MILLIS
+                || !username.equals(this.username)
+                || !version.equals(this.version)
+                || !group.equals(this.group)
+                || anyField != this.anyField
+                || !name.toLowerCase().startsWith(this.name.toLowerCase())) {
+            return null;
+        }
+        if (name.length() <= 1) {
+            return result;
+        }
+        String lowerName = name.toLowerCase();
+        return result.stream()
+                .filter(e -> contains(e.getName(), lowerName)
+                || anyField && (contains(e.getLogin(), lowerName)
+                || contains(e.getEmail(), lowerName)
+                || contains(e.getDescription(), lowerName)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Saves the result of the search made in the database.
+     *
+     * @param username a user name
+     * @param version the version of the vault of the user read before the
+     * search
+     * @param group a group parameter of the search
+     * @param name a name parameter of the search
+     * @param anyField an anyField parameter of the search
+     * @param result a list of entries
+     */
+    public synchronized void update(String username, String version, String group, String name, boolean anyField,
+            List<EntryListItem> result) {
+        this.username = username;
+        this.version = version;
+        this.group = group;
+        this.name = name;
+        this.anyField = anyField;
+        this.result = result;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    private static boolean contains(String value, String lowerName) {
+        return value != null && value.toLowerCase().contains(lowerName);
+    }
+}
@@ -0,0 +1,93 @@
+package mknv.psm.server;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The replica points to the same database. The replica pool is read-only, so
+ * a write routed to it fails. Only the read-only transactions which ask for
+ * the replica use it.
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.replica.url=${spring.datasource.url}")
+@ActiveProfiles("test")
+public class ReplicaDataSourceConfigurationTest {
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+    }
+
+    @Test
+    public void readOnlyTransaction_When_ReplicaRequested_UsesReplica() {
+        ReplicaDataSourceConfiguration.ReadOnlyRoutingDataSource routingDataSource
+                = (ReplicaDataSourceConfiguration.ReadOnlyRoutingDataSource) ((LazyConnectionDataSourceProxy) dataSource)
+                        .getTargetDataSource();
+        HikariDataSource primaryDataSource = routingDataSource.getPrimary();
+        HikariDataSource replicaDataSource = routingDataSource.getReplica();
+
+        Role role = new Role(1, "role");
+        User user = new User("user", "password");
+        user.getRoles().add(role);
+        //Should be written to the primary database
+        roleRepository.save(role);
+        userRepository.save(user);
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.execute(status -> {
+            ReplicaDataSourceConfiguration.useReplica();
+            assertEquals(user, userRepository.findByName("user"));
+            assertEquals(1, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(0, primaryDataSource.getHikariPoolMXBean().getActiveConnections());
+            return null;
+        });
+
+        template.setReadOnly(false);
+        template.execute(status -> {
+            assertEquals(user, userRepository.findByName("user"));
+            assertEquals(0, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(1, primaryDataSource.getHikariPoolMXBean().getActiveConnections());
+            return null;
+        });
+
+        //A read-only transaction which has not asked for the replica may fill a cache, so it reads the primary
+        template.setReadOnly(true);
+        template.execute(status -> {
+            assertEquals(user, userRepository.findByName("user"));
+            assertEquals(0, replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+            assertEquals(1, primaryDataSource.getHikariPoolMXBean().getActiveConnections());
+            return null;
+        });
+    }
+}
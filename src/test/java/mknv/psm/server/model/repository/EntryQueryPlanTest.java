@@ -0,0 +1,185 @@
+package mknv.psm.server.model.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.User;
+import static mknv.psm.server.model.repository.QueryPlanAssert.*;
+import static mknv.psm.server.model.repository.RepositoryUtil.SEED_USER_ID;
+import mknv.psm.server.model.service.ChangeService;
+import mknv.psm.server.model.service.EntryCursor;
+import mknv.psm.server.model.service.EntryService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Checks that the indexes from schema.sql are able to serve the entry
+ * queries. Fails if the database schema is not migrated.
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class EntryQueryPlanTest {
+
+    //The tests only read the seeded rows, so they are seeded once
+    private static boolean seeded;
+
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+    @Autowired
+    private StatementCapture statementCapture;
+    @Autowired
+    private EntryService entryService;
+    @Autowired
+    private ChangeService changeService;
+    @Autowired
+    private EntryRepository entryRepository;
+
+    private final User user = new User(SEED_USER_ID, "seed0", "password");
+    //A user with 20 entries
+    private final User otherUser = new User(SEED_USER_ID + 1, "seed1", "password");
+
+    @Before
+    public void setUp() {
+        if (!seeded) {
+            repositoryUtil.seedDatabase();
+            seeded = true;
+        }
+    }
+
+    //The substring search of the user with many entries. The sql is generated by EntryService.find,
+    //the plan is explained with the same arguments.
+
+    @Test
+    public void findByName_UsesTrigramIndex() {
+        String sql = statementCapture.captureOne("select",
+                () -> entryService.find(user, "xpect", null, false, false));
+        List<String> plan = repositoryUtil.explain(sql, SEED_USER_ID, "%xpect%");
+        assertUsesIndex(plan, "entries_name_trgm_idx");
+    }
+
+    @Test
+    public void findByAnyField_UsesTrigramIndexes() {
+        String sql = statementCapture.captureOne("select",
+                () -> entryService.find(user, "xpect", null, false, true));
+        List<String> plan = repositoryUtil.explain(sql, SEED_USER_ID, "%xpect%", "%xpect%", "%xpect%", "%xpect%");
+        assertUsesIndex(plan, "entries_name_trgm_idx");
+        assertUsesIndex(plan, "entries_login_trgm_idx");
+        assertUsesIndex(plan, "entries_email_trgm_idx");
+        assertUsesIndex(plan, "entries_description_trgm_idx");
+    }
+
+    @Test
+    public void findPage_UsesKeysetIndex() {
+        EntryCursor after = new EntryCursor("entry 5000", SEED_USER_ID + 5000);
+        String sql = statementCapture.captureOne("select",
+                () -> entryService.find(user, null, null, false, false, after, 100));
+        //The id is a numeric literal, Hibernate puts it into the sql
+        List<String> plan = repositoryUtil.explain(sql, SEED_USER_ID, after.getName(), after.getName(), 101);
+        assertUsesIndex(plan, "entries_user_name_id_idx");
+        assertNoSort(plan);
+    }
+
+    @Test
+    public void findExpiring_UsesPartialIndex() {
+        LocalDate from = LocalDate.now().minusDays(30);
+        LocalDate until = LocalDate.now().plusDays(30);
+        String sql = statementCapture.captureOne("select",
+                () -> entryRepository.findExpiring(from, until, PageRequest.of(0, 500)));
+        List<String> plan = repositoryUtil.explain(sql, Date.valueOf(from), Date.valueOf(until), 500);
+        assertUsesIndex(plan, "entries_expired_date_idx");
+    }
+
+    @Test
+    public void findExpiringAfter_UsesPartialIndex() {
+        LocalDate until = LocalDate.now().plusDays(30);
+        LocalDate afterDate = LocalDate.now().plusDays(10);
+        String sql = statementCapture.captureOne("select",
+                () -> entryRepository.findExpiringAfter(until, afterDate, SEED_USER_ID, PageRequest.of(0, 500)));
+        List<String> plan = repositoryUtil.explain(sql, Date.valueOf(until), Date.valueOf(afterDate),
+                Date.valueOf(afterDate), SEED_USER_ID, 500);
+        assertUsesIndex(plan, "entries_expired_date_idx");
+    }
+
+    @Test
+    public void findListItemsByUser_UsesUserIndex() {
+        String sql = statementCapture.captureOne("select",
+                () -> entryRepository.findListItemsByUser(otherUser));
+        List<String> plan = repositoryUtil.explain(sql, otherUser.getId());
+        assertUsesIndex(plan, "entries_user_change_idx");
+    }
+
+    @Test
+    public void findByGroup_UsesUserGroupIndex() {
+        Group group = new Group(SEED_USER_ID + 200, "group200", user);
+        String sql = statementCapture.captureOne("select",
+                () -> entryService.find(user, null, group, false, false, null, 100));
+        List<String> plan = repositoryUtil.explain(sql, SEED_USER_ID, group.getId(), 101);
+        assertUsesIndex(plan, "entries_user_group_name_id_idx");
+        assertNoSort(plan);
+    }
+
+    @Test
+    public void findByEmptyGroup_UsesUserGroupIndex() {
+        String sql = statementCapture.captureOne("select",
+                () -> entryService.find(user, null, null, true, false, null, 100));
+        List<String> plan = repositoryUtil.explain(sql, SEED_USER_ID, 101);
+        //The index selects the entries, but they are sorted. Postgres does not use
+        //the order of the index after an is null condition, only after an equality.
+        assertUsesIndex(plan, "entries_user_group_name_id_idx");
+    }
+
+    @Test
+    public void findByIdsAndUser_UsesPrimaryKey() {
+        List<Integer> ids = List.of(SEED_USER_ID + 1, SEED_USER_ID + 2, SEED_USER_ID + 3);
+        String sql = statementCapture.captureOne("select",
+                () -> entryRepository.findByIdsAndUser(ids, user));
+        List<String> plan = repositoryUtil.explain(sql, ids.get(0), ids.get(1), ids.get(2), SEED_USER_ID);
+        assertUsesIndex(plan, "entries_pk");
+    }
+
+    //The change feed of a client which is up to date
+
+    @Test
+    public void findEntriesChangedSince_UsesChangeIndex() {
+        long since = repositoryUtil.currentTxid();
+        String sql = statementCapture.captureOne("select",
+                () -> changeService.findEntriesChangedSince(SEED_USER_ID, since));
+        List<String> plan = repositoryUtil.explain(sql, SEED_USER_ID, since);
+        assertUsesIndex(plan, "entries_user_change_idx");
+    }
+
+    @Test
+    public void findIdsDeletedSince_UsesTombstoneIndex() {
+        long since = repositoryUtil.currentTxid();
+        String sql = statementCapture.captureOne("select",
+                () -> entryRepository.findIdsDeletedSince(SEED_USER_ID, since));
+        List<String> plan = repositoryUtil.explain(sql, SEED_USER_ID, since);
+        assertUsesIndex(plan, "tombstones_user_change_idx");
+    }
+
+    //The foreign key checks are the statements Postgres runs on delete of a referenced row
+
+    @Test
+    public void deleteGroup_ForeignKeyCheck_UsesGroupIndex() {
+        List<String> plan = repositoryUtil.explain(
+                "select 1 from only entries x where group_id = ? for key share of x", SEED_USER_ID + 1);
+        assertUsesIndex(plan, "entries_group_idx");
+    }
+
+    @Test
+    public void deleteUser_ForeignKeyCheck_UsesUserIndex() {
+        List<String> plan = repositoryUtil.explain(
+                "select 1 from only entries x where user_id = ? for key share of x", otherUser.getId());
+        assertUsesIndex(plan, "entries_user_change_idx");
+    }
+}
@@ -137,4 +137,95 @@ public class EntryRepositoryTest {
         assertNotNull(actual.getGroup());
         assertNotNull(actual.getUser());
     }
+
+    @Test
+    public void findByIdsAndUser_OK() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        User user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+
+        Entry expected1 = new Entry("expected1", user1);
+        Entry expected2 = new Entry("expected2", user1);
+        Entry entryWithAnotherUser = new Entry("entryWithAnotherUser", user2);
+        Entry notRequested = new Entry("notRequested", user1);
+
+        entryRepository.save(expected1);
+        entryRepository.save(expected2);
+        entryRepository.save(entryWithAnotherUser);
+        entryRepository.save(notRequested);
+
+        List<Entry> actual = entryRepository.findByIdsAndUser(
+                List.of(expected1.getId(), expected2.getId(), entryWithAnotherUser.getId()), user1);
+        assertEquals(2, actual.size());
+        assertTrue(actual.contains(expected1));
+        assertTrue(actual.contains(expected2));
+    }
+
+    @Test
+    public void updateByUser_OK() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        User user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+
+        Group group = new Group("group", user1);
+        Group anotherUserGroup = new Group("group", user2);
+        groupRepository.save(group);
+        groupRepository.save(anotherUserGroup);
+
+        Entry entry = new Entry("entry", user1);
+        entryRepository.save(entry);
+
+        Entry changed = new Entry("changed", user1);
+        changed.setId(entry.getId());
+        changed.setGroup(group);
+        assertEquals(1, entryRepository.updateByUser(changed, user1));
+        Entry actual = entryRepository.findByIdFetchAll(entry.getId());
+        assertEquals("changed", actual.getName());
+        assertEquals(group, actual.getGroup());
+
+        //Should not update the entry of another user
+        changed.setName("another");
+        changed.setGroup(null);
+        assertEquals(0, entryRepository.updateByUser(changed, user2));
+
+        //Should not move the entry to the group of another user
+        changed.setGroup(anotherUserGroup);
+        assertEquals(0, entryRepository.updateByUser(changed, user1));
+
+        actual = entryRepository.findByIdFetchAll(entry.getId());
+        assertEquals("changed", actual.getName());
+        assertEquals(group, actual.getGroup());
+    }
+
+    @Test
+    public void deleteByIdAndUser_OK() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        User user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+
+        Entry entry = new Entry("entry", user1);
+        entryRepository.save(entry);
+
+        //Should not delete the entry of another user
+        assertEquals(0, entryRepository.deleteByIdAndUser(entry.getId(), user2));
+        assertTrue(entryRepository.existsById(entry.getId()));
+
+        assertEquals(1, entryRepository.deleteByIdAndUser(entry.getId(), user1));
+        assertFalse(entryRepository.existsById(entry.getId()));
+    }
 }
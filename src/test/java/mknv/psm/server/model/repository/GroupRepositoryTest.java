@@ -90,4 +90,62 @@ public class GroupRepositoryTest {
         Group group2 = new Group("gROUp1", user1);
         groupRepository.save(group2);
     }
+
+    @Test
+    public void updateNameByIdAndUser_OK() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        User user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+
+        Group group = new Group("group", user1);
+        groupRepository.save(group);
+
+        //Should not rename the group of another user
+        assertEquals(0, groupRepository.updateNameByIdAndUser(group.getId(), "another", user2));
+        assertEquals(1, groupRepository.updateNameByIdAndUser(group.getId(), "renamed", user1));
+        assertEquals("renamed", groupRepository.findByIdFetchUser(group.getId()).getName());
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void updateNameByIdAndUser_With_ExistingName_Failed() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+
+        Group group1 = new Group("group1", user1);
+        Group group2 = new Group("group2", user1);
+        groupRepository.save(group1);
+        groupRepository.save(group2);
+
+        groupRepository.updateNameByIdAndUser(group2.getId(), "GROUP1", user1);
+    }
+
+    @Test
+    public void deleteByIdAndUser_OK() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        User user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+
+        Group group = new Group("group", user1);
+        groupRepository.save(group);
+
+        //Should not delete the group of another user
+        assertEquals(0, groupRepository.deleteByIdAndUser(group.getId(), user2));
+        assertTrue(groupRepository.existsById(group.getId()));
+
+        assertEquals(1, groupRepository.deleteByIdAndUser(group.getId(), user1));
+        assertFalse(groupRepository.existsById(group.getId()));
+    }
 }
@@ -0,0 +1,33 @@
+package mknv.psm.server.model.repository;
+
+import java.util.List;
+import static org.junit.Assert.*;
+
+/**
+ * Assertions on query plans returned by {@link RepositoryUtil}.
+ *
+ * @author mknv
+ */
+public final class QueryPlanAssert {
+
+    private QueryPlanAssert() {
+    }
+
+    /**
+     * Fails if the plan does not use the index.
+     */
+    public static void assertUsesIndex(List<String> plan, String index) {
+        String message = "The index " + index + " is not used. Is schema.sql applied?\n" + String.join("\n", plan);
+        assertTrue(message, plan.stream().anyMatch(line -> line.contains(index)));
+    }
+
+    /**
+     * Fails if the rows are sorted after they are selected, that is the order
+     * is not given by an index.
+     */
+    public static void assertNoSort(List<String> plan) {
+        String message = "The rows are not sorted by an index. Is schema.sql applied?\n" + String.join("\n", plan);
+        assertFalse(message, plan.stream().anyMatch(line -> line.trim().startsWith("Sort")
+                || line.contains("->  Sort") || line.contains("Incremental Sort")));
+    }
+}
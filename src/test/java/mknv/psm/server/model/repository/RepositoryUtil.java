@@ -2,7 +2,10 @@ package mknv.psm.server.model.repository;
 
 
 
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
@@ -14,15 +17,91 @@ import org.springframework.stereotype.Component;
 @Component
 public class RepositoryUtil {
 
+    /**
+     * The id of the seeded user with many entries. The ids of the seeded rows
+     * start from it, far above the ids allocated by the sequences.
+     */
+    public static final int SEED_USER_ID = 1000000;
+
     @Autowired
     private DataSource dataSource;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     public void clearDatabase() {
         JdbcTemplate template = new JdbcTemplate(dataSource);
         template.update("delete from entries");
         template.update("delete from groups");
+        template.update("delete from tombstones");
+        template.update("update tombstones_horizon set change_txid = 0");
         template.update("delete from users_roles");
         template.update("delete from users");
         template.update("delete from roles");
+        //The rows are deleted bypassing Hibernate, so the second-level cache is cleared as well
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    /**
+     * Fills the database with generated rows and collects the statistics, so
+     * the planner chooses plans as on a real database. There are 5000 users
+     * with 2 of 5 roles each, the first 200 of them have 10 groups each. The
+     * user {@link #SEED_USER_ID} has 20000 entries, 200 of them are in the
+     * empty group. 199 other users have 20 entries each. Every 1000th entry of
+     * the first user contains "expected" in the name, login, email and
+     * description. The tombstones table holds 20000 earlier deletions of the
+     * first 200 users.
+     */
+    public void seedDatabase() {
+        clearDatabase();
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.update("insert into roles (id, name)"
+                + " select ? + i, 'seed' || i from generate_series(0, 4) i", SEED_USER_ID);
+        template.update("insert into users (id, name, password)"
+                + " select ? + i, 'seed' || i, 'password' from generate_series(0, 4999) i", SEED_USER_ID);
+        template.update("insert into users_roles (role_id, user_id)"
+                + " select ? + (i + j) % 5, ? + i from generate_series(0, 4999) i, generate_series(0, 1) j",
+                SEED_USER_ID, SEED_USER_ID);
+        //The group ? + i belongs to the user ? + i % 200
+        template.update("insert into groups (id, user_id, name)"
+                + " select ? + i, ? + i % 200, 'group' || i from generate_series(0, 1999) i", SEED_USER_ID, SEED_USER_ID);
+        template.update("insert into entries (id, group_id, user_id, name, login, email, description, expired_date)"
+                + " select ? + i, case when i % 100 = 1 then null else ? + i % 10 * 200 end, ?,"
+                + " case when i % 1000 = 0 then 'Expected ' else 'Entry ' end || i,"
+                + " case when i % 1000 = 1 then 'expected' else 'login' end || i,"
+                + " case when i % 1000 = 2 then 'expected' else 'mail' end || i || '@example.com',"
+                + " case when i % 1000 = 3 then 'Expected' else 'Description' end || ' ' || i,"
+                + " case when i % 50 = 0 then current_date + i % 60 end"
+                + " from generate_series(0, 19999) i", SEED_USER_ID, SEED_USER_ID, SEED_USER_ID);
+        template.update("insert into entries (id, group_id, user_id, name, login, email, description)"
+                + " select ? + 20000 + i, ? + 1 + i / 20, ? + 1 + i / 20, 'Entry ' || i, 'login' || i,"
+                + " 'mail' || i || '@example.com', 'Description ' || i"
+                + " from generate_series(0, 3979) i", SEED_USER_ID, SEED_USER_ID, SEED_USER_ID);
+        template.update("insert into tombstones (table_name, record_id, user_id)"
+                + " select case when i % 2 = 0 then 'entries' else 'groups' end, ? + 100000 + i, ? + i % 200"
+                + " from generate_series(0, 19999) i", SEED_USER_ID, SEED_USER_ID);
+        //Vacuum also moves the pending rows of the trigram indexes into the index itself
+        template.execute("vacuum analyze roles, users, users_roles, groups, entries, tombstones");
+    }
+
+    /**
+     * Returns the id of a new transaction. It is above the change_txid of the
+     * seeded rows, so it is a sync token of a client which is up to date.
+     *
+     * @return a transaction id
+     */
+    public long currentTxid() {
+        return new JdbcTemplate(dataSource).queryForObject("select txid_current()", Long.class);
+    }
+
+    /**
+     * Returns the query plan of the sql statement with the arguments.
+     *
+     * @param sql a sql statement, such as one captured by
+     * {@link StatementCapture}
+     * @param args statement arguments
+     * @return lines of the query plan
+     */
+    public List<String> explain(String sql, Object... args) {
+        return new JdbcTemplate(dataSource).queryForList("explain " + sql, String.class, args);
     }
-}
\ No newline at end of file
+}
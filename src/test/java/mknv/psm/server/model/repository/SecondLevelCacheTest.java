@@ -0,0 +1,91 @@
+package mknv.psm.server.model.repository;
+
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Role role;
+    private User user;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        role = roleRepository.save(new Role(1, "role"));
+        user = new User("user", "password");
+        user.getRoles().add(role);
+        userRepository.save(user);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void findAllRoles_UsesQueryCache() {
+        assertEquals(List.of(role), roleRepository.findAll());
+        assertEquals(List.of(role), roleRepository.findAll());
+
+        assertEquals(1, statistics.getQueryCacheMissCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        //The second call is served by the query and entity caches without a statement
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findByNameFetchRoles_UsesCollectionCache() {
+        User actual = userRepository.findByNameFetchRoles("user");
+        assertEquals(List.of(role), actual.getRoles());
+        long statements = statistics.getPrepareStatementCount();
+
+        actual = userRepository.findByNameFetchRoles("user");
+
+        assertEquals(List.of(role), actual.getRoles());
+        //Only the user is selected, the roles are in the collection and entity caches
+        assertEquals(statements + 1, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getCacheRegionStatistics(User.class.getName() + ".roles").getHitCount() > 0);
+    }
+
+    @Test
+    public void findGroupsByUser_UsesQueryCache() {
+        Group group1 = groupRepository.save(new Group("group1", user));
+        assertEquals(List.of(group1), groupRepository.findByUser(user));
+        assertEquals(List.of(group1), groupRepository.findByUser(user));
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        //A change of the groups table invalidates the cached result
+        Group group2 = groupRepository.save(new Group("group2", user));
+        assertEquals(List.of(group1, group2), groupRepository.findByUser(user));
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+}
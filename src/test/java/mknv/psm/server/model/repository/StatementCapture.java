@@ -0,0 +1,91 @@
+package mknv.psm.server.model.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the sql statements Hibernate prepares, so the query plan tests
+ * explain the sql the application actually sends to the database.
+ *
+ * @author mknv
+ */
+@Component
+public class StatementCapture implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final ThreadLocal<List<String>> statements = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = statements.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Runs the action and returns the sql statements prepared by it in the
+     * current thread.
+     *
+     * @param action an action that runs queries
+     * @return the sql statements in the order of their preparation
+     */
+    public List<String> capture(Runnable action) {
+        List<String> captured = new ArrayList<>();
+        statements.set(captured);
+        try {
+            action.run();
+        } finally {
+            statements.remove();
+        }
+        return captured;
+    }
+
+    /**
+     * Runs the action and returns the only sql statement prepared by it which
+     * starts with the prefix.
+     *
+     * @param prefix the beginning of the statement, such as "select" or
+     * "update"
+     * @param action an action that runs queries
+     * @return the sql statement
+     */
+    public String captureOne(String prefix, Runnable action) {
+        return captureOne(prefix, null, action);
+    }
+
+    /**
+     * Runs the action and returns the only sql statement prepared by it which
+     * starts with the prefix and refers to the table.
+     *
+     * @param prefix the beginning of the statement, such as "select" or
+     * "delete"
+     * @param table a table name without the schema, null for any table
+     * @param action an action that runs queries
+     * @return the sql statement
+     */
+    public String captureOne(String prefix, String table, Runnable action) {
+        List<String> captured = new ArrayList<>();
+        for (String sql : capture(action)) {
+            //The table name is qualified by the default schema
+            if (sql.startsWith(prefix) && (table == null || sql.contains("." + table + " "))) {
+                captured.add(sql);
+            }
+        }
+        if (captured.size() != 1) {
+            throw new IllegalStateException("Expected one " + prefix + " statement"
+                    + (table == null ? "" : " on " + table) + ", captured: " + captured);
+        }
+        return captured.get(0);
+    }
+}
@@ -0,0 +1,129 @@
+package mknv.psm.server.model.repository;
+
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import mknv.psm.server.model.domain.User;
+import static mknv.psm.server.model.repository.QueryPlanAssert.*;
+import static mknv.psm.server.model.repository.RepositoryUtil.SEED_USER_ID;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks that the indexes from schema.sql are able to serve the user and
+ * group queries. Fails if the database schema is not migrated.
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class UserQueryPlanTest {
+
+    //The tests only read the seeded rows, so they are seeded once
+    private static boolean seeded;
+
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+    @Autowired
+    private StatementCapture statementCapture;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    //A user with 10 groups
+    private final User user = new User(SEED_USER_ID + 1, "seed1", "password");
+
+    @Before
+    public void setUp() {
+        if (!seeded) {
+            repositoryUtil.seedDatabase();
+            seeded = true;
+        }
+        //The statements are not sent if the result is in the second-level cache
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    public void findByName_UsesNameIndex() {
+        String sql = statementCapture.captureOne("select", () -> userRepository.findByName("seed1"));
+        List<String> plan = repositoryUtil.explain(sql, "seed1");
+        assertUsesIndex(plan, "users_name_idx");
+    }
+
+    @Test
+    public void findRoles_UsesUserRoleIndex() {
+        //The user is selected first, then the roles
+        String sql = statementCapture.captureOne("select", "users_roles",
+                () -> userRepository.findByNameFetchRoles("seed1"));
+        List<String> plan = repositoryUtil.explain(sql, user.getId());
+        assertUsesIndex(plan, "users_roles_user_idx");
+    }
+
+    @Test
+    public void findGroupsByUser_UsesUserIndex() {
+        String sql = statementCapture.captureOne("select", () -> groupRepository.findByUser(user));
+        List<String> plan = repositoryUtil.explain(sql, user.getId());
+        //The groups are sorted by name, not by lower(name), so the smallest index which leads with user_id is used
+        assertUsesIndex(plan, "groups_user_change_idx");
+    }
+
+    //The change feed of a client which is up to date
+
+    @Test
+    public void findGroupsChangedSince_UsesChangeIndex() {
+        long since = repositoryUtil.currentTxid();
+        String sql = statementCapture.captureOne("select", () -> groupRepository.findChangedSince(user.getId(), since));
+        List<String> plan = repositoryUtil.explain(sql, user.getId(), since);
+        assertUsesIndex(plan, "groups_user_change_idx");
+    }
+
+    @Test
+    public void findGroupIdsDeletedSince_UsesTombstoneIndex() {
+        long since = repositoryUtil.currentTxid();
+        String sql = statementCapture.captureOne("select",
+                () -> groupRepository.findIdsDeletedSince(user.getId(), since));
+        List<String> plan = repositoryUtil.explain(sql, user.getId(), since);
+        assertUsesIndex(plan, "tombstones_user_change_idx");
+    }
+
+    //Hibernate deletes the roles of a user before the user itself.
+    //The foreign key checks are the statements Postgres runs on delete of a user.
+
+    @Test
+    public void deleteUser_DeleteRoles_UsesUserRoleIndex() {
+        //The user has no groups and entries. The delete is rolled back.
+        String sql = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            User deleted = userRepository.findById(SEED_USER_ID + 4999).get();
+            return statementCapture.captureOne("delete", "users_roles", () -> {
+                userRepository.delete(deleted);
+                userRepository.flush();
+            });
+        });
+        List<String> plan = repositoryUtil.explain(sql, user.getId());
+        assertUsesIndex(plan, "users_roles_user_idx");
+    }
+
+    @Test
+    public void deleteUser_ForeignKeyChecks_UseUserIndexes() {
+        List<String> plan = repositoryUtil.explain(
+                "select 1 from only users_roles x where user_id = ? for key share of x", user.getId());
+        assertUsesIndex(plan, "users_roles_user_idx");
+
+        plan = repositoryUtil.explain(
+                "select 1 from only groups x where user_id = ? for key share of x", user.getId());
+        assertUsesIndex(plan, "groups_user_change_idx");
+    }
+}
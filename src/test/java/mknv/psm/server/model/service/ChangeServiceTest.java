@@ -0,0 +1,168 @@
+package mknv.psm.server.model.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ChangeServiceTest {
+
+    @Autowired
+    private ChangeService changeService;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+    @Autowired
+    private DataSource dataSource;
+
+    private User user1;
+    private User user2;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        Role role = new Role(1, "role");
+        user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+    }
+
+    @Test
+    public void getChanges_OK() {
+        Group group = groupRepository.save(new Group("group", user1));
+        Entry entry1 = entryRepository.save(new Entry("entry1", user1));
+        Entry entry2 = entryRepository.save(new Entry("entry2", user1));
+        Entry entry3 = entryRepository.save(new Entry("entry3", user2));
+
+        //Without a token should return all entries and groups of the user1
+        Changes changes = changeService.getChanges(user1, null);
+        assertEquals(List.of(EntryListItem.of(entry1), EntryListItem.of(entry2)), changes.getEntries());
+        assertEquals(List.of(group), changes.getGroups());
+        assertTrue(changes.getDeletedEntries().isEmpty());
+        assertTrue(changes.getDeletedGroups().isEmpty());
+        assertTrue(changes.isResync());
+        long token = Long.parseLong(changes.getNext());
+
+        entry2.setName("changed");
+        entryRepository.save(entry2);
+        entryRepository.delete(entry1);
+        entryRepository.delete(entry3);
+        groupRepository.delete(group);
+
+        //Should return the updated entry2 and the ids of the deleted entry1 and group
+        changes = changeService.getChanges(user1, token);
+        assertEquals(1, changes.getEntries().size());
+        assertEquals("changed", changes.getEntries().get(0).getName());
+        assertTrue(changes.getGroups().isEmpty());
+        assertEquals(List.of(entry1.getId()), changes.getDeletedEntries());
+        assertEquals(List.of(group.getId()), changes.getDeletedGroups());
+        assertFalse(changes.isResync());
+
+        //Nothing has changed after the last call
+        changes = changeService.getChanges(user1, Long.parseLong(changes.getNext()));
+        assertTrue(changes.getEntries().isEmpty());
+        assertTrue(changes.getDeletedEntries().isEmpty());
+        assertTrue(changes.getDeletedGroups().isEmpty());
+        assertFalse(changes.isResync());
+    }
+
+    @Test
+    public void getChanges_When_TransactionCommitsAfterToken() throws Exception {
+        Entry entry = entryRepository.save(new Entry("entry", user1));
+        long token = Long.parseLong(changeService.getChanges(user1, null).getNext());
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("update entries set name = ? where id = ?")) {
+                statement.setString(1, "changed");
+                statement.setInt(2, entry.getId());
+                statement.executeUpdate();
+            }
+            //A transaction which has started later commits first
+            entryRepository.save(new Entry("entry", user2));
+            //The change is not committed yet
+            Changes changes = changeService.getChanges(user1, token);
+            assertTrue(changes.getEntries().isEmpty());
+            token = Long.parseLong(changes.getNext());
+            connection.commit();
+        }
+
+        //The change committed after the previous call should not be lost
+        Changes changes = changeService.getChanges(user1, token);
+        assertEquals(1, changes.getEntries().size());
+        assertEquals("changed", changes.getEntries().get(0).getName());
+        assertFalse(changes.isResync());
+    }
+
+    @Test
+    public void getChanges_When_TokenIsUnknown() {
+        Entry entry = entryRepository.save(new Entry("entry", user1));
+
+        //A token of another database or a time in milliseconds of an earlier version
+        Changes changes = changeService.getChanges(user1, System.currentTimeMillis());
+        assertTrue(changes.isResync());
+        assertEquals(List.of(EntryListItem.of(entry)), changes.getEntries());
+    }
+
+    @Test
+    public void deleteTombstones_OK() {
+        Entry entry1 = entryRepository.save(new Entry("entry1", user1));
+        Entry entry2 = entryRepository.save(new Entry("entry2", user1));
+        long token = Long.parseLong(changeService.getChanges(user1, null).getNext());
+        entryRepository.delete(entry1);
+
+        assertEquals(0, changeService.deleteTombstones(Duration.ofDays(1)));
+        //Should not remove the tombstone within the retention period
+        assertEquals(List.of(entry1.getId()), changeService.getChanges(user1, token).getDeletedEntries());
+
+        assertEquals(1, changeService.deleteTombstones(Duration.ZERO));
+        //The deletion of the entry1 is lost, the token is older than the retention period
+        Changes changes = changeService.getChanges(user1, token);
+        assertTrue(changes.isResync());
+        assertEquals(List.of(EntryListItem.of(entry2)), changes.getEntries());
+
+        //A new token should work
+        entryRepository.delete(entry2);
+        changes = changeService.getChanges(user1, Long.parseLong(changes.getNext()));
+        assertFalse(changes.isResync());
+        assertEquals(List.of(entry2.getId()), changes.getDeletedEntries());
+    }
+}
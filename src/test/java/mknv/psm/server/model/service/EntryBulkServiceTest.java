@@ -0,0 +1,165 @@
+package mknv.psm.server.model.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class EntryBulkServiceTest {
+
+    @Autowired
+    private EntryBulkService entryBulkService;
+    @Autowired
+    private VaultCache vaultCache;
+
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+
+    private User user1;
+    private User user2;
+    private Entry entry1;
+    private Entry entry2;
+    private Entry otherUserEntry;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        Role role = new Role(1, "role");
+        user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+
+        entry1 = new Entry("entry1", user1);
+        entry1.setPassword("encrypted1");
+        entry2 = new Entry("entry2", user1);
+        entry2.setPassword("encrypted2");
+        otherUserEntry = new Entry("other", user2);
+        entryRepository.saveAll(List.of(entry1, entry2, otherUserEntry));
+    }
+
+    @Test
+    public void move_OK() {
+        Group group = new Group("group", user1);
+        groupRepository.save(group);
+        String version = vaultCache.getVersion(user1.getId());
+
+        //Duplicate ids are allowed
+        assertTrue(entryBulkService.move(user1, List.of(entry1.getId(), entry2.getId(), entry1.getId()), group));
+
+        Entry actual = entryRepository.findByIdFetchAll(entry1.getId());
+        assertEquals(group, actual.getGroup());
+        //The password is not touched
+        assertEquals("encrypted1", actual.getPassword());
+        assertEquals(group, entryRepository.findByIdFetchAll(entry2.getId()).getGroup());
+        assertNotEquals(version, vaultCache.getVersion(user1.getId()));
+
+        //Removes the entries from the group
+        assertTrue(entryBulkService.move(user1, List.of(entry1.getId(), entry2.getId()), null));
+        assertNull(entryRepository.findByIdFetchAll(entry1.getId()).getGroup());
+        assertNull(entryRepository.findByIdFetchAll(entry2.getId()).getGroup());
+    }
+
+    @Test
+    public void move_When_EntryBelongsToAnotherUser() {
+        Group group = new Group("group", user1);
+        groupRepository.save(group);
+
+        //Nothing should be changed
+        assertFalse(entryBulkService.move(user1, List.of(entry1.getId(), otherUserEntry.getId()), group));
+        assertNull(entryRepository.findByIdFetchAll(entry1.getId()).getGroup());
+        assertNull(entryRepository.findByIdFetchAll(otherUserEntry.getId()).getGroup());
+    }
+
+    @Test
+    public void setExpiredDate_OK() {
+        LocalDate expiredDate = LocalDate.of(2030, 1, 1);
+        assertTrue(entryBulkService.setExpiredDate(user1, List.of(entry1.getId(), entry2.getId()), expiredDate));
+        assertEquals(expiredDate, entryRepository.findByIdFetchAll(entry1.getId()).getExpiredDate());
+        assertEquals(expiredDate, entryRepository.findByIdFetchAll(entry2.getId()).getExpiredDate());
+
+        //Removes the password validity
+        assertTrue(entryBulkService.setExpiredDate(user1, List.of(entry1.getId()), null));
+        assertNull(entryRepository.findByIdFetchAll(entry1.getId()).getExpiredDate());
+        assertEquals(expiredDate, entryRepository.findByIdFetchAll(entry2.getId()).getExpiredDate());
+    }
+
+    @Test
+    public void delete_OK() {
+        assertTrue(entryBulkService.delete(user1, List.of(entry1.getId(), entry2.getId())));
+        assertFalse(entryRepository.existsById(entry1.getId()));
+        assertFalse(entryRepository.existsById(entry2.getId()));
+        assertTrue(entryRepository.existsById(otherUserEntry.getId()));
+    }
+
+    @Test
+    public void delete_When_EntryNotFound() {
+        //Nothing should be deleted
+        assertFalse(entryBulkService.delete(user1, List.of(entry1.getId(), entry2.getId() + 1000)));
+        assertTrue(entryRepository.existsById(entry1.getId()));
+    }
+
+    @Test
+    public void delete_MoreThanChunk_OK() {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < EntryBulkService.CHUNK_SIZE + 1; i++) {
+            entries.add(new Entry("entry" + i, user2));
+        }
+        entryRepository.saveAll(entries);
+        List<Integer> ids = new ArrayList<>();
+        entries.forEach(e -> ids.add(e.getId()));
+
+        assertTrue(entryBulkService.delete(user2, ids));
+        assertEquals(1, entryRepository.findByUser(user2).size());
+    }
+
+    @Test
+    public void findMissingIds_MoreThanChunk() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < EntryBulkService.CHUNK_SIZE; i++) {
+            ids.add(entry2.getId() + 1000 + i);
+        }
+        ids.add(entry1.getId());
+        ids.add(otherUserEntry.getId());
+
+        Set<Integer> missingIds = entryBulkService.findMissingIds(user1, ids);
+        assertEquals(EntryBulkService.CHUNK_SIZE + 1, missingIds.size());
+        assertFalse(missingIds.contains(entry1.getId()));
+        assertTrue(missingIds.contains(otherUserEntry.getId()));
+    }
+}
@@ -0,0 +1,126 @@
+package mknv.psm.server.model.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.util.PasswordEncryptor;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class EntryExportServiceTest {
+
+    @Autowired
+    private EntryExportService entryExportService;
+    @Autowired
+    private EntryImportService entryImportService;
+    @Autowired
+    private EntryService entryService;
+    @Autowired
+    private PasswordEncryptor passwordEncryptor;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+
+    private User user1;
+    private User user2;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        Role role = new Role(1, "role");
+        user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+
+        Group group = new Group("group", user1);
+        groupRepository.save(group);
+        Entry entry1 = new Entry("entry1", user1);
+        entry1.setGroup(group);
+        entry1.setLogin("login");
+        entry1.setPassword(passwordEncryptor.encrypt("secret"));
+        entry1.setExpiredDate(LocalDate.of(2030, 1, 31));
+        Entry entry2 = new Entry("entry2", user1);
+        entry2.setDescription("line1\nline2, \"quoted\"");
+        Entry entry3 = new Entry("entry3", user2);
+        entryRepository.save(entry1);
+        entryRepository.save(entry2);
+        entryRepository.save(entry3);
+    }
+
+    @Test
+    public void export_Ndjson_OK() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entryExportService.export(user1, EntryExportService.Format.NDJSON, out);
+
+        //Should return one line per entry of the user1
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode line1 = objectMapper.readTree(lines[0]);
+        assertEquals("entry1", line1.get("name").asText());
+        assertEquals("login", line1.get("login").asText());
+        assertEquals("secret", line1.get("password").asText());
+        assertEquals("group", line1.get("group").asText());
+        assertEquals("2030-01-31", line1.get("expiredDate").asText());
+        JsonNode line2 = objectMapper.readTree(lines[1]);
+        assertEquals("entry2", line2.get("name").asText());
+        assertTrue(line2.get("password").isNull());
+    }
+
+    @Test
+    public void export_Csv_OK() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entryExportService.export(user1, EntryExportService.Format.CSV, out);
+
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("name,login,email,phone,password,description,group,expiredDate\n"
+                + "entry1,login,,,secret,,group,2030-01-31\n"));
+
+        //The exported file should be importable
+        groupRepository.save(new Group("group", user2));
+        EntryImportResult result = entryImportService.importCsv(user2, new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(2, result.getImported());
+        assertTrue(result.getErrors().isEmpty());
+        EntryListItem imported = entryService.find(user2, "entry2", null, false).get(0);
+        assertEquals("line1\nline2, \"quoted\"", imported.getDescription());
+    }
+}
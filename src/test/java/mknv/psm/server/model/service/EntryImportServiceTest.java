@@ -0,0 +1,151 @@
+package mknv.psm.server.model.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.util.PasswordEncryptor;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class EntryImportServiceTest {
+
+    @Autowired
+    private EntryImportService entryImportService;
+    @Autowired
+    private EntryService entryService;
+    @Autowired
+    private PasswordEncryptor passwordEncryptor;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+    @SpyBean
+    private VaultChangePublisher vaultChangePublisher;
+
+    private User user;
+    private Group group;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        Role role = new Role(1, "role");
+        user = new User("user", "password");
+        user.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user);
+        group = new Group("Mail", user);
+        groupRepository.save(group);
+    }
+
+    @Test
+    public void importCsv_OK() throws Exception {
+        String csv = "name,login,password,group,expiredDate\n"
+                + "entry1,login1,secret,mail,2030-01-31\n"
+                + ",login2,secret,,\n"
+                + "entry3,login3,,unknown,\n"
+                + "entry4,login4,,,31.01.2030\n"
+                + "entry5,,,,\n";
+
+        EntryImportResult result = entryImportService.importCsv(user, toStream(csv));
+
+        //The rows 2, 3 and 4 are invalid. Should import entry1 and entry5.
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        assertEquals(3, result.getErrors().get(1).getRow());
+        assertEquals(4, result.getErrors().get(2).getRow());
+
+        List<Entry> entries = entryRepository.findByUser(user);
+        assertEquals(2, entries.size());
+        Entry entry1 = entryRepository.findByIdFetchAll(entries.get(0).getId());
+        assertEquals("entry1", entry1.getName());
+        assertEquals("login1", entry1.getLogin());
+        assertEquals(group, entry1.getGroup());
+        assertEquals(LocalDate.of(2030, 1, 31), entry1.getExpiredDate());
+        //The password should be encrypted
+        assertNotEquals("secret", entry1.getPassword());
+        assertEquals("secret", passwordEncryptor.decrypt(entry1.getPassword()));
+
+        Entry entry5 = entries.get(1);
+        assertEquals("entry5", entry5.getName());
+        assertNull(entry5.getLogin());
+        assertNull(entry5.getPassword());
+        assertNull(entry5.getGroup());
+    }
+
+    @Test
+    public void importJson_OK() throws Exception {
+        String json = "[{\"name\": \"entry1\", \"email\": \"user@mail.com\", \"group\": \"MAIL\"},"
+                + "{\"name\": \"entry2\", \"phone\": \"1234567890123456789012345678901\"}]";
+
+        EntryImportResult result = entryImportService.importJson(user, toStream(json));
+
+        //The phone of the entry2 is too long
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getRow());
+
+        List<EntryListItem> entries = entryService.find(user, null, group, false);
+        assertEquals(1, entries.size());
+        assertEquals("entry1", entries.get(0).getName());
+        assertEquals("user@mail.com", entries.get(0).getEmail());
+    }
+
+    @Test
+    public void importCsv_When_RowsExceedChunk() throws Exception {
+        int count = EntryImportService.CHUNK_SIZE * 2 + 1;
+        StringBuilder csv = new StringBuilder("name,password\n");
+        for (int i = 0; i < count; i++) {
+            csv.append("entry").append(i).append(",secret").append(i).append('\n');
+        }
+
+        EntryImportResult result = entryImportService.importCsv(user, toStream(csv.toString()));
+
+        assertEquals(count, result.getImported());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(count, entryService.find(user, null, null, false).size());
+        //The changes should be published once per chunk
+        verify(vaultChangePublisher, times(3)).bulkChanged(eq(user.getId()), eq(VaultChange.Type.ENTRY), any(),
+                eq(VaultChange.Operation.SAVED));
+        verify(vaultChangePublisher, times(count)).publish(eq(user.getId()),
+                argThat(change -> change.getType() == VaultChange.Type.ENTRY));
+    }
+
+    private static InputStream toStream(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
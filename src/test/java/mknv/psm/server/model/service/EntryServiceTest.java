@@ -1,7 +1,9 @@
 package mknv.psm.server.model.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
 import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.Role;
 import mknv.psm.server.model.domain.User;
@@ -76,31 +78,128 @@ public class EntryServiceTest {
         entryRepository.save(entry4);
 
         //Find by user1. Should return entry1 and entry2.
-        List<Entry> result = entryService.find(user1, "", null, false);
+        List<EntryListItem> result = entryService.find(user1, "", null, false);
         assertEquals(2, result.size());
-        assertEquals(entry1, result.get(0));
-        assertEquals(entry2, result.get(1));
+        assertEquals(EntryListItem.of(entry1), result.get(0));
+        assertEquals(EntryListItem.of(entry2), result.get(1));
 
         //The name is too short. Should return entry1 and entry2.
         result = entryService.find(user1, "E", null, false);
         assertEquals(2, result.size());
-        assertEquals(entry1, result.get(0));
-        assertEquals(entry2, result.get(1));
+        assertEquals(EntryListItem.of(entry1), result.get(0));
+        assertEquals(EntryListItem.of(entry2), result.get(1));
 
         //Find by name. Should return entry2.
         result = entryService.find(user1, "Y2", null, false);
         assertEquals(1, result.size());
-        assertEquals(entry2, result.get(0));
+        assertEquals(EntryListItem.of(entry2), result.get(0));
 
         //Find by group2. Should return entry3.
         result = entryService.find(user2, null, group2, false);
         assertEquals(1, result.size());
-        assertEquals(entry3, result.get(0));
+        assertEquals(EntryListItem.of(entry3), result.get(0));
 
         //Find by empty group. Should return entry4
         result = entryService.find(user2, "", null, true);
         assertEquals(1, result.size());
-        assertEquals(entry4, result.get(0));
+        assertEquals(EntryListItem.of(entry4), result.get(0));
+    }
+
+    @Test
+    public void find_ByAnyField_OK() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+
+        Entry byName = new Entry("mail", user1);
+        Entry byLogin = new Entry("entry2", user1);
+        byLogin.setLogin("Mailer");
+        Entry byEmail = new Entry("entry3", user1);
+        byEmail.setEmail("user@mail.com");
+        Entry byDescription = new Entry("entry4", user1);
+        byDescription.setDescription("Old MAIL account");
+        Entry notMatched = new Entry("entry5", user1);
+        notMatched.setLogin("login");
+
+        entryRepository.save(byName);
+        entryRepository.save(byLogin);
+        entryRepository.save(byEmail);
+        entryRepository.save(byDescription);
+        entryRepository.save(notMatched);
+
+        //Find by name only. Should return byName.
+        List<EntryListItem> result = entryService.find(user1, "mail", null, false, false);
+        assertEquals(1, result.size());
+        assertEquals(EntryListItem.of(byName), result.get(0));
+
+        //Find by any field. Should return all entries except notMatched.
+        result = entryService.find(user1, "mail", null, false, true);
+        assertEquals(4, result.size());
+        assertFalse(result.contains(EntryListItem.of(notMatched)));
+    }
+
+    @Test
+    public void find_Paged_OK() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+
+        //Two entries have the same name in different case. They are ordered by id.
+        Entry entry1 = entryRepository.save(new Entry("aa", user1));
+        Entry entry2 = entryRepository.save(new Entry("Bb", user1));
+        Entry entry3 = entryRepository.save(new Entry("bb", user1));
+        Entry entry4 = entryRepository.save(new Entry("cc", user1));
+
+        EntryPage page = entryService.find(user1, null, null, false, false, null, 2);
+        assertEquals(List.of(EntryListItem.of(entry1), EntryListItem.of(entry2)), page.getEntries());
+        assertNotNull(page.getNext());
+
+        page = entryService.find(user1, null, null, false, false, EntryCursor.valueOf(page.getNext()), 2);
+        assertEquals(List.of(EntryListItem.of(entry3), EntryListItem.of(entry4)), page.getEntries());
+        //There are no more entries
+        assertNull(page.getNext());
+
+        //The cursor should be applied together with the other criteria
+        page = entryService.find(user1, "bb", null, false, false, EntryCursor.of(EntryListItem.of(entry2)), 2);
+        assertEquals(List.of(EntryListItem.of(entry3)), page.getEntries());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    public void find_Paged_SortedByCodePoints() {
+        Role role = new Role(1, "role");
+        User user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+
+        //The names are sorted differently by the usual collations and by String.compareTo.
+        //U+1F600 is after U+FF41 by code points, but its first UTF-16 char is before it.
+        Entry entry1 = entryRepository.save(new Entry("a\uD83D\uDE00", user1));
+        Entry entry2 = entryRepository.save(new Entry("A\uFF21", user1));
+        Entry entry3 = entryRepository.save(new Entry("a-b", user1));
+        Entry entry4 = entryRepository.save(new Entry("a b", user1));
+        Entry entry5 = entryRepository.save(new Entry("ab", user1));
+
+        List<EntryListItem> expected = List.of(EntryListItem.of(entry4), EntryListItem.of(entry3),
+                EntryListItem.of(entry5), EntryListItem.of(entry2), EntryListItem.of(entry1));
+        EntryPage page = entryService.find(user1, null, null, false, false, null, 10);
+        assertEquals(expected, page.getEntries());
+
+        //The order of the cached entries should be the same as of the database
+        List<EntryListItem> sorted = new ArrayList<>(List.of(EntryListItem.of(entry1), EntryListItem.of(entry2),
+                EntryListItem.of(entry3), EntryListItem.of(entry4), EntryListItem.of(entry5)));
+        sorted.sort(EntryCursor.ORDER);
+        assertEquals(expected, sorted);
+
+        //The keyset condition should use the same order
+        page = entryService.find(user1, null, null, false, false, EntryCursor.of(EntryListItem.of(entry2)), 10);
+        assertEquals(List.of(EntryListItem.of(entry1)), page.getEntries());
+        assertTrue(EntryCursor.of(EntryListItem.of(entry2)).isBefore(EntryListItem.of(entry1)));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -0,0 +1,208 @@
+package mknv.psm.server.model.service;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.List;
+import javax.sql.DataSource;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.ExpiringEntry;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ExpiryScannerTest {
+
+    @Autowired
+    private ExpiryScanner expiryScanner;
+    @Autowired
+    private VaultCache vaultCache;
+
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+    @Autowired
+    private DataSource dataSource;
+
+    private User user1;
+    private User user2;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        Role role = new Role(1, "role");
+        user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+    }
+
+    @Test
+    public void scan_OK() {
+        LocalDate today = LocalDate.now();
+        Entry expired = new Entry("expired", user1);
+        expired.setExpiredDate(today.minusDays(1));
+        Entry expiring = new Entry("expiring", user1);
+        expiring.setExpiredDate(today.plusDays(10));
+        Entry later = new Entry("later", user1);
+        later.setExpiredDate(today.plusDays(100));
+        Entry never = new Entry("never", user1);
+        Entry earlier = new Entry("earlier", user1);
+        earlier.setExpiredDate(today.minusDays(100));
+        Entry other = new Entry("other", user2);
+        other.setExpiredDate(today.plusDays(10));
+        entryRepository.saveAll(List.of(expired, expiring, later, never, earlier, other));
+
+        int batchSize = expiryScanner.getBatchSize();
+        expiryScanner.setBatchSize(1);
+        try {
+            expiryScanner.scan();
+        } finally {
+            expiryScanner.setBatchSize(batchSize);
+        }
+        //An entry inserted bypassing JPA does not change the vault version
+        new JdbcTemplate(dataSource).update("insert into entries (id, user_id, name, expired_date) values (?, ?, ?, ?)",
+                1000000, user1.getId(), "inserted", java.sql.Date.valueOf(today));
+
+        ExpirySummary summary = expiryScanner.getSummary(user1);
+        assertEquals(List.of(new ExpiringEntry(expired.getId(), user1.getId(), "expired", expired.getExpiredDate()),
+                new ExpiringEntry(expiring.getId(), user1.getId(), "expiring", expiring.getExpiredDate())),
+                summary.getEntries());
+        assertEquals(1, summary.getExpired());
+        assertEquals(1, summary.getExpiring());
+        //Both users are found by the scan in batches of one entry
+        assertEquals(1, expiryScanner.getSummary(user2).getEntries().size());
+    }
+
+    @Test
+    public void getSummary_When_EntriesChanged() {
+        Entry entry = new Entry("entry", user1);
+        entry.setExpiredDate(LocalDate.now().plusDays(1));
+        entryRepository.save(entry);
+        expiryScanner.scan();
+        assertEquals(1, expiryScanner.getSummary(user1).getEntries().size());
+
+        entryRepository.delete(entry);
+
+        //The summary is made again, because the vault version has changed
+        assertTrue(expiryScanner.getSummary(user1).getEntries().isEmpty());
+    }
+
+    @Test
+    public void getSummary_When_UserNotScanned() {
+        expiryScanner.scan();
+        Entry entry = new Entry("entry", user2);
+        entry.setExpiredDate(LocalDate.now().plusDays(1));
+        entryRepository.save(entry);
+
+        assertEquals(1, expiryScanner.getSummary(user2).getEntries().size());
+    }
+
+    @Test
+    public void scan_When_EntriesChangedDuringScan() {
+        Entry entry = new Entry("entry", user1);
+        entry.setExpiredDate(LocalDate.now().plusDays(1));
+        entryRepository.save(entry);
+
+        //The entries of the user1 are changed after they have been read by the scan
+        scanWithHook(() -> {
+            new JdbcTemplate(dataSource).update("insert into entries (id, user_id, name, expired_date)"
+                    + " values (?, ?, ?, ?)", 1000000, user1.getId(), "inserted", java.sql.Date.valueOf(LocalDate.now()));
+            vaultCache.evict(user1.getId());
+        });
+
+        //The scanned summary is outdated, so it is made again
+        assertEquals(2, expiryScanner.getSummary(user1).getEntries().size());
+    }
+
+    @Test
+    public void scan_When_SummaryMadeDuringScan() {
+        Entry entry = new Entry("entry", user2);
+        entry.setExpiredDate(LocalDate.now().plusDays(1));
+        entryRepository.save(entry);
+
+        ExpirySummary[] summary = new ExpirySummary[1];
+        scanWithHook(() -> summary[0] = expiryScanner.getSummary(user2));
+
+        //The summary made during the scan is not lost
+        assertSame(summary[0], expiryScanner.getSummary(user2));
+    }
+
+    @Test
+    public void getSummary_When_UserBeingScanned() {
+        Entry first = new Entry("first", user1);
+        first.setExpiredDate(LocalDate.now().plusDays(1));
+        Entry second = new Entry("second", user1);
+        second.setExpiredDate(LocalDate.now().plusDays(2));
+        entryRepository.saveAll(List.of(first, second));
+
+        int batchSize = expiryScanner.getBatchSize();
+        expiryScanner.setBatchSize(1);
+        ExpirySummary[] summary = new ExpirySummary[1];
+        try {
+            //The first batch has been merged, the second one has not
+            scanWithHook("findExpiringAfter", () -> summary[0] = expiryScanner.getSummary(user1));
+        } finally {
+            expiryScanner.setBatchSize(batchSize);
+        }
+
+        //The incomplete summary of the scan is not returned
+        assertEquals(2, summary[0].getEntries().size());
+        assertEquals(2, expiryScanner.getSummary(user1).getEntries().size());
+    }
+
+    /**
+     * Scans with the action run after the first query of the scan.
+     */
+    private void scanWithHook(Runnable action) {
+        scanWithHook("findExpiring", action);
+    }
+
+    /**
+     * Scans with the action run after every call of the repository method.
+     */
+    private void scanWithHook(String methodName, Runnable action) {
+        EntryRepository repository = (EntryRepository) ReflectionTestUtils.getField(expiryScanner, "entryRepository");
+        EntryRepository hooked = (EntryRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EntryRepository.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(repository, args);
+                    if (method.getName().equals(methodName)) {
+                        action.run();
+                    }
+                    return result;
+                });
+        ReflectionTestUtils.setField(expiryScanner, "entryRepository", hooked);
+        try {
+            expiryScanner.scan();
+        } finally {
+            ReflectionTestUtils.setField(expiryScanner, "entryRepository", repository);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package mknv.psm.server.model.service;
+
+import java.util.List;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class GroupServiceTest {
+
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private VaultCache vaultCache;
+
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+
+    private User user1;
+    private User user2;
+    private Group group;
+    private Group target;
+    private Entry entry1;
+    private Entry entry2;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        Role role = new Role(1, "role");
+        user1 = new User("user1", "password");
+        user1.getRoles().add(role);
+        user2 = new User("user2", "password");
+        user2.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user1);
+        userRepository.save(user2);
+
+        group = new Group("group", user1);
+        target = new Group("target", user1);
+        groupRepository.saveAll(List.of(group, target));
+
+        entry1 = new Entry("entry1", user1);
+        entry1.setGroup(group);
+        entry1.setPassword("encrypted1");
+        entry2 = new Entry("entry2", user1);
+        entry2.setGroup(group);
+        entryRepository.saveAll(List.of(entry1, entry2));
+    }
+
+    @Test
+    public void deleteAndMoveEntries_To_EmptyGroup_OK() {
+        String version = vaultCache.getVersion(user1.getId());
+
+        assertEquals(1, groupService.deleteAndMoveEntries(user1, group.getId(), null));
+
+        assertFalse(groupRepository.existsById(group.getId()));
+        assertNull(entryRepository.findByIdFetchAll(entry1.getId()).getGroup());
+        assertNull(entryRepository.findByIdFetchAll(entry2.getId()).getGroup());
+        assertNotEquals(version, vaultCache.getVersion(user1.getId()));
+    }
+
+    @Test
+    public void deleteAndMoveEntries_To_Group_OK() {
+        //Merges the group into the target
+        assertEquals(1, groupService.deleteAndMoveEntries(user1, group.getId(), target));
+
+        assertFalse(groupRepository.existsById(group.getId()));
+        Entry actual = entryRepository.findByIdFetchAll(entry1.getId());
+        assertEquals(target, actual.getGroup());
+        //The password is not touched
+        assertEquals("encrypted1", actual.getPassword());
+        assertEquals(target, entryRepository.findByIdFetchAll(entry2.getId()).getGroup());
+    }
+
+    @Test
+    public void deleteAndMoveEntries_When_GroupBelongsToAnotherUser() {
+        //Nothing should be changed
+        assertEquals(0, groupService.deleteAndMoveEntries(user2, group.getId(), null));
+
+        assertTrue(groupRepository.existsById(group.getId()));
+        assertEquals(group, entryRepository.findByIdFetchAll(entry1.getId()).getGroup());
+    }
+
+    @Test
+    public void deleteAndMoveEntries_When_GroupNotFound() {
+        assertEquals(0, groupService.deleteAndMoveEntries(user1, group.getId() + 1000, target));
+        assertEquals(group, entryRepository.findByIdFetchAll(entry1.getId()).getGroup());
+    }
+}
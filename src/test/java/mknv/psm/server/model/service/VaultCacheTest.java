@@ -0,0 +1,163 @@
+package mknv.psm.server.model.service;
+
+import java.util.List;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "vault.cache.enabled=true")
+@ActiveProfiles("test")
+public class VaultCacheTest {
+
+    @Autowired
+    private VaultCache vaultCache;
+    @Autowired
+    private EntryService entryService;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+
+    private User user;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        Role role = new Role(1, "role");
+        user = new User("user", "password");
+        user.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user);
+    }
+
+    @Test
+    public void getEntries_OK() {
+        Entry entry1 = new Entry("entry1", user);
+        entry1.setPassword("password");
+        entryRepository.save(entry1);
+
+        //Should keep the entry views
+        List<EntryListItem> result = vaultCache.getEntries(user);
+        assertEquals(1, result.size());
+        assertEquals(EntryListItem.of(entry1), result.get(0));
+        assertSame(result, vaultCache.getEntries(user));
+
+        //Saving an entry should evict the cache
+        Entry entry2 = new Entry("entry2", user);
+        entryRepository.save(entry2);
+        result = vaultCache.getEntries(user);
+        assertEquals(2, result.size());
+        assertEquals(EntryListItem.of(entry2), result.get(1));
+
+        //Deleting an entry should evict the cache
+        entryRepository.delete(entry1);
+        result = vaultCache.getEntries(user);
+        assertEquals(1, result.size());
+        assertEquals(EntryListItem.of(entry2), result.get(0));
+    }
+
+    @Test
+    public void getGroups_OK() {
+        Group group1 = new Group("group1", user);
+        groupRepository.save(group1);
+
+        List<Group> result = vaultCache.getGroups(user);
+        assertEquals(1, result.size());
+        assertSame(result, vaultCache.getGroups(user));
+
+        //Saving a group should evict the cache
+        Group group2 = new Group("group2", user);
+        groupRepository.save(group2);
+        result = vaultCache.getGroups(user);
+        assertEquals(2, result.size());
+
+        //Deleting a group should evict the cache
+        groupRepository.deleteById(group1.getId());
+        result = vaultCache.getGroups(user);
+        assertEquals(1, result.size());
+        assertEquals(group2, result.get(0));
+    }
+
+    @Test
+    public void getVersion_OK() {
+        String version = vaultCache.getVersion(user.getId());
+        assertEquals(version, vaultCache.getVersion(user.getId()));
+
+        //Saving an entry should change the version
+        Entry entry = new Entry("entry", user);
+        entryRepository.save(entry);
+        String newVersion = vaultCache.getVersion(user.getId());
+        assertNotEquals(version, newVersion);
+
+        //Saving a group should change the version
+        groupRepository.save(new Group("group", user));
+        assertNotEquals(newVersion, vaultCache.getVersion(user.getId()));
+    }
+
+    @Test
+    public void find_FromCache_OK() {
+        Group group1 = new Group("group1", user);
+        groupRepository.save(group1);
+
+        Entry entry1 = new Entry("entry1", user);
+        entry1.setGroup(group1);
+        Entry entry2 = new Entry("entry2", user);
+        entry2.setLogin("Login2");
+
+        entryRepository.save(entry1);
+        entryRepository.save(entry2);
+
+        //The name is too short. Should return entry1 and entry2.
+        List<EntryListItem> result = entryService.find(user, "E", null, false);
+        assertEquals(2, result.size());
+        assertEquals(EntryListItem.of(entry1), result.get(0));
+        assertEquals(EntryListItem.of(entry2), result.get(1));
+
+        //Find by name. Should return entry2.
+        result = entryService.find(user, "Y2", null, false);
+        assertEquals(1, result.size());
+        assertEquals(EntryListItem.of(entry2), result.get(0));
+
+        //Find by any field. Should return entry2.
+        result = entryService.find(user, "login", null, false, true);
+        assertEquals(1, result.size());
+        assertEquals(EntryListItem.of(entry2), result.get(0));
+
+        //Find by group1. Should return entry1.
+        result = entryService.find(user, null, group1, false);
+        assertEquals(1, result.size());
+        assertEquals(EntryListItem.of(entry1), result.get(0));
+
+        //Find by empty group. Should return entry2.
+        result = entryService.find(user, "", null, true);
+        assertEquals(1, result.size());
+        assertEquals(EntryListItem.of(entry2), result.get(0));
+    }
+}
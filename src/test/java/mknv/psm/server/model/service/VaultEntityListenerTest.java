@@ -0,0 +1,125 @@
+package mknv.psm.server.model.service;
+
+import java.util.List;
+import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.EntryRepository;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.RepositoryUtil;
+import mknv.psm.server.model.repository.RoleRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.web.notification.VaultChangeEmitters;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ *
+ * @author mknv
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class VaultEntityListenerTest {
+
+    @SpyBean
+    private VaultChangeEmitters vaultChangeEmitters;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RepositoryUtil repositoryUtil;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private VaultChangePublisher vaultChangePublisher;
+    @Autowired
+    private VaultCache vaultCache;
+
+    private User user;
+
+    @Before
+    public void setUp() {
+        repositoryUtil.clearDatabase();
+        Role role = new Role(1, "role");
+        user = new User("user", "password");
+        user.getRoles().add(role);
+        roleRepository.save(role);
+        userRepository.save(user);
+        reset(vaultChangeEmitters);
+    }
+
+    @Test
+    public void publish_AfterCommit() {
+        Group group = new Group("group", user);
+        Entry entry = new Entry("entry", user);
+        transactionTemplate.execute(status -> {
+            groupRepository.save(group);
+            entryRepository.save(entry);
+            //Nothing is published before the commit
+            verify(vaultChangeEmitters, never()).onChange(any());
+            return null;
+        });
+
+        ArgumentCaptor<VaultChangeEvent> captor = ArgumentCaptor.forClass(VaultChangeEvent.class);
+        verify(vaultChangeEmitters).onChange(captor.capture());
+        assertEquals(user.getId(), captor.getValue().getUserId());
+        assertEquals(List.of(
+                new VaultChange(VaultChange.Type.GROUP, group.getId(), VaultChange.Operation.SAVED),
+                new VaultChange(VaultChange.Type.ENTRY, entry.getId(), VaultChange.Operation.SAVED)),
+                captor.getValue().getChanges());
+
+        reset(vaultChangeEmitters);
+        entryRepository.delete(entry);
+
+        verify(vaultChangeEmitters).onChange(captor.capture());
+        assertEquals(List.of(new VaultChange(VaultChange.Type.ENTRY, entry.getId(), VaultChange.Operation.DELETED)),
+                captor.getValue().getChanges());
+    }
+
+    @Test
+    public void publish_When_RolledBack() {
+        transactionTemplate.execute(status -> {
+            entryRepository.save(new Entry("entry", user));
+            status.setRollbackOnly();
+            return null;
+        });
+
+        verify(vaultChangeEmitters, never()).onChange(any());
+    }
+
+    @Test
+    public void bulkChanged() {
+        String version = vaultCache.getVersion(user.getId());
+        transactionTemplate.execute(status -> {
+            vaultChangePublisher.bulkChanged(user.getId(), VaultChange.Type.ENTRY, List.of(1, 2),
+                    VaultChange.Operation.DELETED);
+            return null;
+        });
+
+        assertNotEquals(version, vaultCache.getVersion(user.getId()));
+        ArgumentCaptor<VaultChangeEvent> captor = ArgumentCaptor.forClass(VaultChangeEvent.class);
+        verify(vaultChangeEmitters).onChange(captor.capture());
+        assertEquals(List.of(
+                new VaultChange(VaultChange.Type.ENTRY, 1, VaultChange.Operation.DELETED),
+                new VaultChange(VaultChange.Type.ENTRY, 2, VaultChange.Operation.DELETED)),
+                captor.getValue().getChanges());
+    }
+}
@@ -3,6 +3,8 @@ package mknv.psm.server.util;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
@@ -30,4 +32,13 @@ public class AesPasswordEncryptorTest {
         String decrypted = encryptor.decrypt(encrypted);
         assertEquals(expected, decrypted);
     }
+
+    @Test
+    public void decrypt_When_EncryptedByDeluxEncryptor() {
+        //Passwords stored before the key caching must be still readable
+        TextEncryptor deluxEncryptor = Encryptors.delux(encryptor.getKey(), encryptor.getSalt());
+        String encrypted = deluxEncryptor.encrypt("password");
+        assertEquals("password", encryptor.decrypt(encrypted));
+        assertEquals("password", deluxEncryptor.decrypt(encryptor.encrypt("password")));
+    }
 }
@@ -0,0 +1,76 @@
+package mknv.psm.server.web.auth;
+
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ *
+ * @author mknv
+ */
+public class ApiTokenServiceTest {
+
+    private ApiTokenService apiTokenService;
+
+    @BeforeEach
+    public void setUp() {
+        apiTokenService = new ApiTokenService();
+        apiTokenService.init();
+    }
+
+    @Test
+    public void issue_validate_OK() {
+        String token = apiTokenService.issue(new AuthenticatedUser(1, "user:name"),
+                AuthorityUtils.createAuthorityList("admin", "user"));
+
+        Authentication result = apiTokenService.validate(token);
+        assertEquals(new AuthenticatedUser(1, "user:name"), result.getPrincipal());
+        assertEquals("user:name", result.getName());
+        assertEquals(AuthorityUtils.createAuthorityList("admin", "user"), result.getAuthorities());
+    }
+
+    @Test
+    public void validate_When_TokenIsWrong() {
+        String token = apiTokenService.issue(new AuthenticatedUser(1, "user"),
+                AuthorityUtils.createAuthorityList("user"));
+
+        //The token is signed by another key
+        ApiTokenService anotherService = new ApiTokenService();
+        anotherService.init();
+        assertNull(anotherService.validate(token));
+
+        //The payload is changed
+        String anotherToken = anotherService.issue(new AuthenticatedUser(1, "user"),
+                AuthorityUtils.createAuthorityList("admin"));
+        String payload = anotherToken.substring(0, anotherToken.indexOf('.'));
+        assertNull(apiTokenService.validate(payload + token.substring(token.indexOf('.'))));
+
+        //The token is malformed
+        assertNull(apiTokenService.validate("wrong"));
+        assertNull(apiTokenService.validate("wrong.wrong"));
+    }
+
+    @Test
+    public void validate_When_TokenIsExpired() {
+        apiTokenService.setExpiration(Duration.ofSeconds(-1));
+        String token = apiTokenService.issue(new AuthenticatedUser(1, "user"),
+                AuthorityUtils.createAuthorityList("user"));
+
+        assertNull(apiTokenService.validate(token));
+    }
+
+    @Test
+    public void validate_When_TokenIsRevoked() {
+        String token = apiTokenService.issue(new AuthenticatedUser(1, "user"),
+                AuthorityUtils.createAuthorityList("user"));
+        String anotherUserToken = apiTokenService.issue(new AuthenticatedUser(2, "another"),
+                AuthorityUtils.createAuthorityList("user"));
+
+        apiTokenService.revoke(1);
+        assertNull(apiTokenService.validate(token));
+        assertNotNull(apiTokenService.validate(anotherUserToken));
+    }
+}
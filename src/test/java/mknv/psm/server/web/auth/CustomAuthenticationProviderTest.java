@@ -0,0 +1,96 @@
+package mknv.psm.server.web.auth;
+
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.UserRepository;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.BDDMockito.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ *
+ * @author mknv
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class CustomAuthenticationProviderTest {
+
+    @Autowired
+    private CustomAuthenticationProvider authenticationProvider;
+    @Autowired
+    private AuthenticationCache authenticationCache;
+    @MockBean
+    private UserRepository userRepository;
+
+    @Test
+    public void authenticate_OK() {
+        User user = new User(1, "user", "password");
+        user.getRoles().add(new Role(1, "user"));
+
+        given(userRepository.findByNameFetchRoles("user")).willReturn(user);
+
+        Authentication result = authenticationProvider.authenticate(token("user", "password"));
+        assertEquals(new AuthenticatedUser(1, "user"), result.getPrincipal());
+        assertEquals("user", result.getName());
+        assertEquals("user", result.getAuthorities().iterator().next().getAuthority());
+
+        //The second authentication should be taken from the cache
+        result = authenticationProvider.authenticate(token("user", "password"));
+        assertEquals(new AuthenticatedUser(1, "user"), result.getPrincipal());
+        then(userRepository).should(times(1)).findByNameFetchRoles("user");
+
+        //After the invalidation the user should be queried again
+        authenticationCache.invalidate(1);
+        authenticationProvider.authenticate(token("user", "password"));
+        then(userRepository).should(times(2)).findByNameFetchRoles("user");
+    }
+
+    @Test
+    public void authenticate_When_InvalidatedDuringAuthentication() {
+        User user = new User(3, "changed", "password");
+        user.getRoles().add(new Role(1, "user"));
+
+        //The password is changed while the user is being authenticated with the old one
+        given(userRepository.findByNameFetchRoles("changed")).willAnswer(invocation -> {
+            authenticationCache.invalidate(3);
+            return user;
+        });
+
+        authenticationProvider.authenticate(token("changed", "password"));
+
+        //The result should not be cached
+        assertNull(authenticationCache.get("changed", "password"));
+    }
+
+    @Test
+    public void authenticate_When_PasswordIsWrong() {
+        User user = new User(2, "another", "password");
+        user.getRoles().add(new Role(1, "user"));
+
+        given(userRepository.findByNameFetchRoles("another")).willReturn(user);
+
+        authenticationProvider.authenticate(token("another", "password"));
+
+        //A wrong password should not be taken from the cache
+        assertThrows(BadCredentialsException.class,
+                () -> authenticationProvider.authenticate(token("another", "wrong")));
+    }
+
+    private UsernamePasswordAuthenticationToken token(String username, String password) {
+        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(username, password);
+        token.setDetails(new WebAuthenticationDetails(new MockHttpServletRequest()));
+        return token;
+    }
+}
@@ -140,7 +140,7 @@ public class EntryControllerTest {
         newEntry.setName("new");
 
         given(userRepository.findByName("user")).willReturn(user);
-        given(entryRepository.findByIdFetchAll(1)).willReturn(existingEntry);
+        given(entryRepository.updateByUser(newEntry, user)).willReturn(1);
 
         mockMvc.perform(post("/entries/save").secure(true).with(csrf())
                 .flashAttr("entry", newEntry))
@@ -148,7 +148,8 @@ public class EntryControllerTest {
 
         //A logged user should be assigned to the newEntry
         assertEquals(user, newEntry.getUser());
-        then(entryRepository).should(times(1)).save(any());
+        then(entryRepository).should(times(1)).updateByUser(newEntry, user);
+        then(entryRepository).should(times(0)).save(any());
     }
 
     @Test
@@ -178,6 +179,7 @@ public class EntryControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(view().name("error"));
 
+        then(entryRepository).should(times(1)).updateByUser(entry, user);
         then(entryRepository).should(times(0)).save(any());
     }
 
@@ -203,6 +205,7 @@ public class EntryControllerTest {
                 .andExpect(status().isForbidden())
                 .andExpect(view().name("403"));
 
+        then(entryRepository).should(times(1)).updateByUser(any(), any());
         then(entryRepository).should(times(0)).save(any());
     }
 
@@ -271,6 +274,36 @@ public class EntryControllerTest {
         then(entryRepository).should(times(0)).save(any());
     }
 
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void updateEntry_When_GroupBelongsToAnotherUser() throws Exception {
+        User currentUser = new User(1, "user", "password");
+        User anotherUser = new User(2, "another", "password");
+        Group group = new Group(1, "group", anotherUser);
+
+        Entry existingEntry = new Entry();
+        existingEntry.setId(1);
+        existingEntry.setName("existing");
+        existingEntry.setUser(currentUser);
+
+        Entry newEntry = new Entry();
+        newEntry.setId(1);
+        newEntry.setName("new");
+        newEntry.setGroup(group);
+
+        //The update statement has not found the group of the current user
+        given(userRepository.findByName("user")).willReturn(currentUser);
+        given(entryRepository.findByIdFetchAll(1)).willReturn(existingEntry);
+        given(groupRepository.findByIdFetchUser(1)).willReturn(group);
+
+        mockMvc.perform(post("/entries/save").secure(true).with(csrf())
+                .flashAttr("entry", newEntry))
+                .andExpect(status().isForbidden())
+                .andExpect(view().name("403"));
+
+        then(entryRepository).should(times(1)).updateByUser(newEntry, currentUser);
+    }
+
     @Test
     @WithMockUser(username = "user", authorities = "user")
     public void createEntry_With_Password_OK() throws Exception {
@@ -303,7 +336,7 @@ public class EntryControllerTest {
         existingEntry.setExpiredDate(LocalDate.of(2000, 1, 1));
 
         given(userRepository.findByName("user")).willReturn(currentUser);
-        given(entryRepository.findByIdFetchAll(1)).willReturn(existingEntry);
+        given(entryRepository.updateByUser(existingEntry, currentUser)).willReturn(1);
 
         mockMvc.perform(post("/entries/save").secure(true).with(csrf())
                 .flashAttr("entry", existingEntry)
@@ -311,7 +344,7 @@ public class EntryControllerTest {
                 .andExpect(redirectedUrl("/entries"));
 
         assertEquals(null, existingEntry.getExpiredDate());
-        then(entryRepository).should(times(1)).save(any());
+        then(entryRepository).should(times(1)).updateByUser(existingEntry, currentUser);
     }
 
     @Test
@@ -328,7 +361,7 @@ public class EntryControllerTest {
         existingEntry.setUser(currentUser);
 
         given(userRepository.findByName("user")).willReturn(currentUser);
-        given(entryRepository.findByIdFetchAll(1)).willReturn(existingEntry);
+        given(entryRepository.updateByUser(existingEntry, currentUser)).willReturn(1);
 
         mockMvc.perform(post("/entries/save").secure(true).with(csrf())
                 .flashAttr("entry", existingEntry)
@@ -343,6 +376,6 @@ public class EntryControllerTest {
                 .andExpect(redirectedUrl("/entries"));
 
         assertEquals(LocalDate.now().plusMonths(3), existingEntry.getExpiredDate());
-        then(entryRepository).should(times(2)).save(any());
+        then(entryRepository).should(times(2)).updateByUser(existingEntry, currentUser);
     }
 }
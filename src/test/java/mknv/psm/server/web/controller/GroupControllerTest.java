@@ -1,8 +1,11 @@
 package mknv.psm.server.web.controller;
 
+import java.util.List;
 import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.User;
 import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.service.GroupService;
+import mknv.psm.server.model.service.VaultCache;
 import mknv.psm.server.model.repository.UserRepository;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
@@ -16,6 +19,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.mockito.BDDMockito.*;
+import static org.hamcrest.Matchers.containsString;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
@@ -37,6 +41,10 @@ public class GroupControllerTest {
     private GroupRepository groupRepository;
     @MockBean
     private UserRepository userRepository;
+    @MockBean
+    private GroupService groupService;
+    @Autowired
+    private VaultCache vaultCache;
 
     @Test
     @WithMockUser(authorities = "user")
@@ -45,6 +53,24 @@ public class GroupControllerTest {
                 .andExpect(view().name("groups/list"));
     }
 
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void list_With_MoveTargets_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        Group group1 = new Group(1, "group1", user);
+        Group group2 = new Group(2, "group2", user);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(groupRepository.findByUser(user)).willReturn(List.of(group1, group2));
+        vaultCache.evict(user.getId());
+
+        //Every group is offered as a target for the entries of the other groups
+        mockMvc.perform(get("/groups").secure(true))
+                .andExpect(view().name("groups/list"))
+                .andExpect(content().string(containsString("<option value=\"2\"")))
+                .andExpect(content().string(containsString("<option value=\"1\"")));
+    }
+
     @Test
     @WithMockUser(authorities = "user")
     public void prepareCreate_OK() throws Exception {
@@ -115,15 +141,16 @@ public class GroupControllerTest {
         Group newGroup = new Group(1, "new", null);
 
         given(userRepository.findByName("user")).willReturn(user);
-        given(groupRepository.findByIdFetchUser(1)).willReturn(existing);
+        given(groupRepository.updateNameByIdAndUser(1, "new", user)).willReturn(1);
 
         mockMvc.perform(post("/groups/save").secure(true).with(csrf())
                 .flashAttr("group", newGroup))
                 .andExpect(redirectedUrl("/groups"));
 
         //The current user should be assigned to the group
-        assertEquals(user, existing.getUser());
-        then(groupRepository).should(times(1)).save(newGroup);
+        assertEquals(user, newGroup.getUser());
+        then(groupRepository).should(times(1)).updateNameByIdAndUser(1, "new", user);
+        then(groupRepository).should(times(0)).save(any());
     }
 
     @Test
@@ -152,7 +179,7 @@ public class GroupControllerTest {
         Group group = new Group(10, "group", null);
 
         given(userRepository.findByName("user")).willReturn(user);
-        given(groupRepository.findByIdFetchUser(10)).willReturn(null);
+        given(groupRepository.existsById(10)).willReturn(false);
 
         mockMvc.perform(post("/groups/save").secure(true).with(csrf())
                 .flashAttr("group", group))
@@ -166,11 +193,10 @@ public class GroupControllerTest {
     @WithMockUser(username = "user", authorities = "user")
     public void update_When_GroupBelongsToAnotherUser() throws Exception {
         User anotherUser = new User(1, "another", "password");
-        Group existingGroup = new Group(1, "existing", anotherUser);
         Group newGroup = new Group(1, "new", null);
 
         given(userRepository.findByName("another")).willReturn(anotherUser);
-        given(groupRepository.findByIdFetchUser(1)).willReturn(existingGroup);
+        given(groupRepository.existsById(1)).willReturn(true);
 
         mockMvc.perform(post("/groups/save").secure(true).with(csrf())
                 .flashAttr("group", newGroup))
@@ -203,14 +229,14 @@ public class GroupControllerTest {
     @WithMockUser(username = "user", authorities = "user")
     public void deleteGroup_OK() throws Exception {
         User currentUser = new User(1, "user", "password");
-        Group existingGroup = new Group(1, "existing", currentUser);
 
-        given(groupRepository.findByIdFetchUser(1)).willReturn(existingGroup);
+        given(userRepository.findByName("user")).willReturn(currentUser);
+        given(groupRepository.deleteByIdAndUser(1, currentUser)).willReturn(1);
 
         mockMvc.perform(post("/groups/delete/{id}", 1).secure(true).with(csrf()))
                 .andExpect(redirectedUrl("/groups"));
 
-        then(groupRepository).should(times(1)).deleteById(1);
+        then(groupRepository).should(times(1)).deleteByIdAndUser(1, currentUser);
     }
 
     @Test
@@ -220,38 +246,123 @@ public class GroupControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(view().name("error"));
 
-        then(groupRepository).should(times(0)).deleteById(1);
+        then(groupRepository).should(times(1)).existsById(10);
     }
 
     @Test
     @WithMockUser(username = "user", authorities = "user")
     public void delete_When_GroupBelongsToAnotherUser() throws Exception {
-        User anotherUser = new User(1, "another", "password");
-        Group existingGroup = new Group(1, "existing", anotherUser);
+        User currentUser = new User(2, "user", "password");
 
-        given(groupRepository.findByIdFetchUser(1)).willReturn(existingGroup);
+        given(userRepository.findByName("user")).willReturn(currentUser);
+        given(groupRepository.existsById(1)).willReturn(true);
 
         mockMvc.perform(post("/groups/delete/{id}", 1).secure(true).with(csrf()))
                 .andExpect(status().isForbidden())
                 .andExpect(view().name("403"));
 
-        then(groupRepository).should(times(0)).deleteById(1);
+        then(groupRepository).should(times(1)).deleteByIdAndUser(1, currentUser);
     }
 
     @Test
     @WithMockUser(username = "user", authorities = "user")
     public void delete_When_DataIntegrityViolationException_IsThrown() throws Exception {
         User currentUser = new User(1, "user", "password");
-        Group existingGroup = new Group(1, "existing", currentUser);
 
-        given(groupRepository.findByIdFetchUser(1)).willReturn(existingGroup);
-        willThrow(DataIntegrityViolationException.class).given(groupRepository).deleteById(1);
+        given(userRepository.findByName("user")).willReturn(currentUser);
+        willThrow(DataIntegrityViolationException.class).given(groupRepository).deleteByIdAndUser(1, currentUser);
 
         mockMvc.perform(post("/groups/delete/{id}", 1).secure(true).with(csrf()))
                 .andExpect(status().isOk())
                 .andExpect(view().name("groups/list"))
                 .andExpect(model().attributeExists("error"));
 
-        then(groupRepository).should(times(1)).deleteById(1);
+        then(groupRepository).should(times(1)).deleteByIdAndUser(1, currentUser);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void deleteGroup_MoveEntries_To_EmptyGroup_OK() throws Exception {
+        User currentUser = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(currentUser);
+        given(groupService.deleteAndMoveEntries(currentUser, 1, null)).willReturn(1);
+
+        mockMvc.perform(post("/groups/delete/{id}", 1).secure(true).with(csrf())
+                .param("move-to", "empty"))
+                .andExpect(redirectedUrl("/groups"));
+
+        then(groupService).should(times(1)).deleteAndMoveEntries(currentUser, 1, null);
+        then(groupRepository).should(times(0)).deleteByIdAndUser(any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void deleteGroup_MoveEntries_To_Group_OK() throws Exception {
+        User currentUser = new User(1, "user", "password");
+        Group target = new Group(2, "target", currentUser);
+
+        given(userRepository.findByName("user")).willReturn(currentUser);
+        given(groupRepository.findByIdFetchUser(2)).willReturn(target);
+        given(groupService.deleteAndMoveEntries(currentUser, 1, target)).willReturn(1);
+
+        mockMvc.perform(post("/groups/delete/{id}", 1).secure(true).with(csrf())
+                .param("move-to", "2"))
+                .andExpect(redirectedUrl("/groups"));
+
+        then(groupService).should(times(1)).deleteAndMoveEntries(currentUser, 1, target);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void deleteGroup_MoveEntries_When_GroupBelongsToAnotherUser() throws Exception {
+        User currentUser = new User(1, "user", "password");
+
+        //The delete statement has not found the group of the current user
+        given(userRepository.findByName("user")).willReturn(currentUser);
+        given(groupService.deleteAndMoveEntries(currentUser, 1, null)).willReturn(0);
+        given(groupRepository.existsById(1)).willReturn(true);
+
+        mockMvc.perform(post("/groups/delete/{id}", 1).secure(true).with(csrf())
+                .param("move-to", "empty"))
+                .andExpect(status().isForbidden())
+                .andExpect(view().name("403"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void deleteGroup_MoveEntries_When_TargetBelongsToAnotherUser() throws Exception {
+        User currentUser = new User(1, "user", "password");
+        User anotherUser = new User(2, "another", "password");
+        Group target = new Group(2, "target", anotherUser);
+
+        given(userRepository.findByName("user")).willReturn(currentUser);
+        given(groupRepository.findByIdFetchUser(2)).willReturn(target);
+
+        mockMvc.perform(post("/groups/delete/{id}", 1).secure(true).with(csrf())
+                .param("move-to", "2"))
+                .andExpect(status().isForbidden())
+                .andExpect(view().name("403"));
+
+        then(groupService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void deleteGroup_MoveEntries_When_TargetIsTheSameGroup() throws Exception {
+        User currentUser = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(currentUser);
+
+        //The same id written in other ways
+        for (String moveTo : new String[]{"1", "01", "+1"}) {
+            mockMvc.perform(post("/groups/delete/{id}", 1).secure(true).with(csrf())
+                    .param("move-to", moveTo))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("groups/list"))
+                    .andExpect(model().attributeExists("error"));
+        }
+
+        then(groupService).shouldHaveNoInteractions();
     }
 }
@@ -19,6 +19,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import mknv.psm.server.model.domain.User;
 import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.web.auth.AuthenticationCache;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -43,6 +44,8 @@ public class UserControllerTest {
     private MockMvc mockMvc;
     @MockBean
     private UserRepository userRepository;
+    @MockBean
+    private AuthenticationCache authenticationCache;
 
     public UserControllerTest() {
     }
@@ -148,6 +151,7 @@ public class UserControllerTest {
         //The new password should be saved
         assertEquals("new password", newUser.getPassword());
         then(userRepository).should(times(1)).save(newUser);
+        then(authenticationCache).should(times(1)).invalidate(1);
     }
 
     @Test
@@ -231,6 +235,8 @@ public class UserControllerTest {
 
         mockMvc.perform(post("/users/delete/1").secure(true).with(csrf()))
                 .andExpect(redirectedUrl("/users"));
+
+        then(authenticationCache).should(times(1)).invalidate(1);
     }
 
     @Test
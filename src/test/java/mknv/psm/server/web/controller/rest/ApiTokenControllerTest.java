@@ -0,0 +1,101 @@
+package mknv.psm.server.web.controller.rest;
+
+import java.util.List;
+import mknv.psm.server.model.domain.Group;
+import mknv.psm.server.model.domain.Role;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.web.auth.ApiTokenService;
+import static org.hamcrest.Matchers.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.BDDMockito.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import com.jayway.jsonpath.JsonPath;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ *
+ * @author mknv
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ApiTokenControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ApiTokenService apiTokenService;
+    @MockBean
+    private UserRepository userRepository;
+    @MockBean
+    private GroupRepository groupRepository;
+
+    @Test
+    public void token_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        user.getRoles().add(new Role(1, "user"));
+        Group group = new Group("group", user);
+
+        given(userRepository.findByNameFetchRoles("user")).willReturn(user);
+        given(groupRepository.findByUser(new User(1, "user", null))).willReturn(List.of(group));
+
+        String response = mockMvc.perform(post("/api/token").secure(true).with(httpBasic("user", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").exists())
+                .andExpect(jsonPath("$.expiresIn", is(3600)))
+                .andReturn().getResponse().getContentAsString();
+        String token = JsonPath.read(response, "$.token");
+
+        //Should authenticate by the token without querying the user
+        mockMvc.perform(get("/api/groups").secure(true).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("group")));
+
+        then(userRepository).should(times(1)).findByNameFetchRoles("user");
+        then(userRepository).should(times(0)).findByName("user");
+
+        //The revoked token should be rejected
+        apiTokenService.revoke(1);
+        mockMvc.perform(get("/api/groups").secure(true).header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void token_When_CredentialsAreWrong() throws Exception {
+        mockMvc.perform(post("/api/token").secure(true).with(httpBasic("user", "wrong")))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/api/groups").secure(true).header("Authorization", "Bearer wrong"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void token_When_AuthenticatedByToken() throws Exception {
+        User user = new User(1, "user", "password");
+        user.getRoles().add(new Role(1, "user"));
+
+        given(userRepository.findByNameFetchRoles("user")).willReturn(user);
+
+        String response = mockMvc.perform(post("/api/token").secure(true).with(httpBasic("user", "password")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = JsonPath.read(response, "$.token");
+
+        //A token should not be renewed by itself
+        mockMvc.perform(post("/api/token").secure(true).header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,124 @@
+package mknv.psm.server.web.controller.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.mockito.BDDMockito.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.User;
+import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.model.service.ChangeService;
+import mknv.psm.server.model.service.Changes;
+import mknv.psm.server.model.service.VaultChange;
+import mknv.psm.server.model.service.VaultChangeEvent;
+import mknv.psm.server.web.notification.VaultChangeEmitters;
+
+/**
+ *
+ * @author mknv
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ChangeRestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private UserRepository userRepository;
+    @MockBean
+    private ChangeService changeService;
+    @Autowired
+    private VaultChangeEmitters vaultChangeEmitters;
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void changes_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        EntryListItem entry = new EntryListItem(1, "entry", null, null, null, null, null, null);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(changeService.getChanges(user, 1000L))
+                .willReturn(new Changes(List.of(entry), List.of(), List.of(2), List.of(), "2000", false));
+
+        mockMvc.perform(get("/api/changes").secure(true)
+                .param("since", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries", hasSize(1)))
+                .andExpect(jsonPath("$.entries[0].name", is("entry")))
+                .andExpect(jsonPath("$.deletedEntries[0]", is(2)))
+                .andExpect(jsonPath("$.next", is("2000")))
+                .andExpect(jsonPath("$.resync", is(false)));
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void changes_When_TokenIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/changes").secure(true)
+                .param("since", "invalid"))
+                .andExpect(status().isBadRequest());
+
+        then(changeService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void stream_OK() throws Exception {
+        User user = new User(10, "user", "password");
+        given(userRepository.findByName("user")).willReturn(user);
+
+        MvcResult result = mockMvc.perform(get("/api/changes/stream").secure(true))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(1, vaultChangeEmitters.count(10));
+
+        vaultChangeEmitters.onChange(new VaultChangeEvent(10,
+                List.of(new VaultChange(VaultChange.Type.ENTRY, 1, VaultChange.Operation.DELETED))));
+        //The changes are sent by another thread
+        String content = result.getResponse().getContentAsString();
+        for (int i = 0; i < 50 && !content.contains("event:changes"); i++) {
+            Thread.sleep(100);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains("event:changes"));
+        assertTrue(content.contains("{\"type\":\"ENTRY\",\"id\":1,\"operation\":\"DELETED\"}"));
+    }
+
+    @Test
+    public void subscribe_When_TooManyConnections() throws Exception {
+        int maximum = vaultChangeEmitters.getMaximumPerUser();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<SseEmitter>> emitters = new ArrayList<>();
+            for (int i = 0; i < maximum * 10; i++) {
+                emitters.add(executor.submit(() -> vaultChangeEmitters.subscribe(11)));
+            }
+            for (Future<SseEmitter> emitter : emitters) {
+                emitter.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        //The oldest connections should be closed, the newest ones are kept
+        assertEquals(maximum, vaultChangeEmitters.count(11));
+    }
+}
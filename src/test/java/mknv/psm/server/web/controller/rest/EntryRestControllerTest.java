@@ -1,11 +1,17 @@
 package mknv.psm.server.web.controller.rest;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Collectors;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.mockito.BDDMockito.*;
+import static org.junit.Assert.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,15 +21,26 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import mknv.psm.server.model.domain.Entry;
+import mknv.psm.server.model.domain.EntryListItem;
+import mknv.psm.server.model.domain.ExpiringEntry;
 import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.User;
 import mknv.psm.server.model.repository.EntryRepository;
 import mknv.psm.server.model.repository.GroupRepository;
 import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.model.service.EntryBulkService;
+import mknv.psm.server.model.service.EntryCursor;
+import mknv.psm.server.model.service.EntryExportService;
+import mknv.psm.server.model.service.EntryImportResult;
+import mknv.psm.server.model.service.EntryImportService;
+import mknv.psm.server.model.service.EntryPage;
 import mknv.psm.server.model.service.EntryService;
+import mknv.psm.server.model.service.VaultCache;
 import mknv.psm.server.util.PasswordEncryptor;
 import mknv.psm.server.util.PasswordGenerator;
 import mknv.psm.server.util.PasswordType;
@@ -49,6 +66,14 @@ public class EntryRestControllerTest {
     @MockBean
     private EntryService entryService;
     @MockBean
+    private EntryBulkService entryBulkService;
+    @MockBean
+    private EntryImportService entryImportService;
+    @MockBean
+    private EntryExportService entryExportService;
+    @Autowired
+    private VaultCache vaultCache;
+    @MockBean
     private PasswordGenerator passwordGenerator;
     @MockBean
     private PasswordEncryptor passwordEncryptor;
@@ -60,7 +85,7 @@ public class EntryRestControllerTest {
         Entry entry = new Entry("entry", user);
 
         given(userRepository.findByName("user")).willReturn(user);
-        given(entryService.find(user, "entry", null, false)).willReturn(List.of(entry));
+        given(entryService.find(user, "entry", null, false, false)).willReturn(List.of(EntryListItem.of(entry)));
 
         mockMvc.perform(get("/rest/entries").secure(true)
                 .param("name", "entry")
@@ -68,9 +93,10 @@ public class EntryRestControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].name", is("entry")))
-                .andExpect(jsonPath("$[0].user").doesNotExist());
+                .andExpect(jsonPath("$[0].user").doesNotExist())
+                .andExpect(jsonPath("$[0].password").doesNotExist());
 
-        then(entryService).should(times(1)).find(user, "entry", null, false);
+        then(entryService).should(times(1)).find(user, "entry", null, false, false);
     }
 
     @Test
@@ -80,7 +106,7 @@ public class EntryRestControllerTest {
         Entry entry = new Entry("entry", user);
 
         given(userRepository.findByName("user")).willReturn(user);
-        given(entryService.find(user, "entry", null, true)).willReturn(List.of(entry));
+        given(entryService.find(user, "entry", null, true, false)).willReturn(List.of(EntryListItem.of(entry)));
 
         mockMvc.perform(get("/rest/entries").secure(true)
                 .param("name", "entry")
@@ -90,7 +116,7 @@ public class EntryRestControllerTest {
                 .andExpect(jsonPath("$[0].name", is("entry")))
                 .andExpect(jsonPath("$[0].user").doesNotExist());
 
-        then(entryService).should(times(1)).find(user, "entry", null, true);
+        then(entryService).should(times(1)).find(user, "entry", null, true, false);
     }
 
     @Test
@@ -102,7 +128,7 @@ public class EntryRestControllerTest {
 
         given(userRepository.findByName("user")).willReturn(user);
         given(groupRepository.findByIdFetchUser(1)).willReturn(group);
-        given(entryService.find(user, "entry", group, false)).willReturn(List.of(entry));
+        given(entryService.find(user, "entry", group, false, false)).willReturn(List.of(EntryListItem.of(entry)));
 
         mockMvc.perform(get("/rest/entries").secure(true)
                 .param("name", "entry")
@@ -112,7 +138,7 @@ public class EntryRestControllerTest {
                 .andExpect(jsonPath("$[0].name", is("entry")))
                 .andExpect(jsonPath("$[0].user").doesNotExist());
 
-        then(entryService).should(times(1)).find(user, "entry", group, false);
+        then(entryService).should(times(1)).find(user, "entry", group, false, false);
     }
 
     @Test
@@ -130,7 +156,7 @@ public class EntryRestControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").exists());
 
-        then(entryService).should(times(0)).find(user, "entry", group, false);
+        then(entryService).should(times(0)).find(user, "entry", group, false, false);
     }
 
     @Test
@@ -148,7 +174,7 @@ public class EntryRestControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").exists());
 
-        then(entryService).should(times(0)).find(user, "entry", group, false);
+        then(entryService).should(times(0)).find(user, "entry", group, false, false);
     }
 
     @Test
@@ -166,54 +192,448 @@ public class EntryRestControllerTest {
                 .andExpect(status().isForbidden())
                 .andExpect(jsonPath("$.message").exists());
 
-        then(entryService).should(times(0)).find(anotherUser, "entry", group, false);
+        then(entryService).should(times(0)).find(anotherUser, "entry", group, false, false);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void findEntries_Incremental_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        Entry entry1 = new Entry("entry1", user);
+        Entry entry2 = new Entry("entry2", user);
+        MockHttpSession session = new MockHttpSession();
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryService.find(user, "en", null, false, false)).willReturn(List.of(EntryListItem.of(entry1), EntryListItem.of(entry2)));
+        given(entryService.find(user, "x", null, false, false)).willReturn(List.of());
+
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "en")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        //The name extends the previous one. Should filter the previous result in memory
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "entry2")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("entry2")));
+
+        then(entryService).should(times(1)).find(any(), any(), any(), anyBoolean(), anyBoolean());
+
+        //The name does not extend the previous one. Should search in the database
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "x")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        then(entryService).should(times(1)).find(user, "x", null, false, false);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void findEntries_Incremental_When_NoSession() throws Exception {
+        User user = new User(1, "user", "password");
+        Entry entry1 = new Entry("entry1", user);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryService.find(user, "en", null, false, false)).willReturn(List.of(EntryListItem.of(entry1)));
+        given(entryService.find(user, "ent", null, false, false)).willReturn(List.of(EntryListItem.of(entry1)));
+
+        //A stateless API client. The result should not be kept, so no session should be created
+        MvcResult result = mockMvc.perform(get("/api/entries").secure(true)
+                .param("name", "en")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn();
+        assertNull(result.getRequest().getSession(false));
+
+        mockMvc.perform(get("/api/entries").secure(true)
+                .param("name", "ent")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk());
+
+        then(entryService).should(times(1)).find(user, "ent", null, false, false);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void findEntries_Incremental_When_VaultChanged() throws Exception {
+        User user = new User(1, "user", "password");
+        Entry entry1 = new Entry("entry1", user);
+        Entry entry2 = new Entry("entry2", user);
+        MockHttpSession session = new MockHttpSession();
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryService.find(user, "en", null, false, false)).willReturn(List.of(EntryListItem.of(entry1)));
+        given(entryService.find(user, "ent", null, false, false))
+                .willReturn(List.of(EntryListItem.of(entry1), EntryListItem.of(entry2)));
+
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "en")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        //The entries have been changed in another session. The previous result should not be used.
+        vaultCache.evict(user.getId());
+
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "ent")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        then(entryService).should(times(1)).find(user, "ent", null, false, false);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void findEntries_Incremental_After_FullSearch() throws Exception {
+        User user = new User(1, "user", "password");
+        Entry entry1 = new Entry("entry1", user);
+        Entry entry2 = new Entry("entry2", user);
+        MockHttpSession session = new MockHttpSession();
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryService.find(user, "en", null, false, false)).willReturn(List.of(EntryListItem.of(entry1)));
+        given(entryService.find(user, "ent", null, false, false))
+                .willReturn(List.of(EntryListItem.of(entry1), EntryListItem.of(entry2)));
+
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "en")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        //A refresh should replace the previous result
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "en")
+                .param("group", "all")
+                .param("incremental", "false"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "ent")
+                .param("group", "all")
+                .param("incremental", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        then(entryService).should(times(2)).find(user, "en", null, false, false);
+        then(entryService).should(times(1)).find(user, "ent", null, false, false);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void findEntries_When_NotModified() throws Exception {
+        User user = new User(1, "user", "password");
+        Entry entry = new Entry("entry", user);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryService.find(user, "entry", null, false, false)).willReturn(List.of(EntryListItem.of(entry)));
+
+        String etag = mockMvc.perform(get("/rest/entries").secure(true)
+                .param("name", "entry")
+                .param("group", "all"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Nothing has changed. Should return 304 without searching.
+        mockMvc.perform(get("/rest/entries").secure(true).header("If-None-Match", etag)
+                .param("name", "entry")
+                .param("group", "all"))
+                .andExpect(status().isNotModified());
+        then(entryService).should(times(1)).find(user, "entry", null, false, false);
+
+        //An entry has been changed. Should search again.
+        vaultCache.evict(1);
+        mockMvc.perform(get("/rest/entries").secure(true).header("If-None-Match", etag)
+                .param("name", "entry")
+                .param("group", "all"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        then(entryService).should(times(2)).find(user, "entry", null, false, false);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void findEntries_Paged_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        EntryListItem entry = new EntryListItem(2, "entry", null, null, null, null, null, null);
+        EntryCursor after = new EntryCursor("a", 1);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryService.find(user, "", null, false, false, after, 1))
+                .willReturn(new EntryPage(List.of(entry), EntryCursor.of(entry)));
+
+        mockMvc.perform(get("/rest/entries").secure(true)
+                .param("name", "")
+                .param("group", "all")
+                .param("limit", "1")
+                .param("after", after.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries", hasSize(1)))
+                .andExpect(jsonPath("$.entries[0].name", is("entry")))
+                .andExpect(jsonPath("$.next", is(EntryCursor.of(entry).toString())));
+
+        then(entryService).should(times(1)).find(user, "", null, false, false, after, 1);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void findEntries_IncrementalPaged_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        EntryListItem entry1 = new EntryListItem(1, "entry1", null, null, null, null, null, null);
+        EntryListItem entry2 = new EntryListItem(2, "entry2", null, null, null, null, null, null);
+        EntryListItem entry3 = new EntryListItem(3, "Entry2", null, null, null, null, null, null);
+        MockHttpSession session = new MockHttpSession();
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryService.find(user, "en", null, false, false)).willReturn(List.of(entry3, entry2, entry1));
+
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "en")
+                .param("group", "all")
+                .param("incremental", "true")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries", hasSize(2)))
+                .andExpect(jsonPath("$.entries[0].id", is(1)))
+                .andExpect(jsonPath("$.entries[1].id", is(2)))
+                .andExpect(jsonPath("$.next", is(EntryCursor.of(entry2).toString())));
+
+        //The next page should be cut from the result kept in the session
+        mockMvc.perform(get("/rest/entries").secure(true).session(session)
+                .param("name", "en")
+                .param("group", "all")
+                .param("incremental", "true")
+                .param("limit", "2")
+                .param("after", EntryCursor.of(entry2).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries", hasSize(1)))
+                .andExpect(jsonPath("$.entries[0].id", is(3)))
+                .andExpect(jsonPath("$.next", nullValue()));
+
+        then(entryService).should(times(1)).find(any(), any(), any(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void findEntries_When_CursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/rest/entries").secure(true)
+                .param("name", "")
+                .param("group", "all")
+                .param("limit", "1")
+                .param("after", "invalid"))
+                .andExpect(status().isBadRequest());
+
+        then(entryService).shouldHaveNoInteractions();
     }
 
     @Test
     @WithMockUser(username = "user", authorities = "user")
     public void deleteEntry_OK() throws Exception {
         User user = new User(1, "user", "password");
-        Entry existingEntry = new Entry("existing", user);
-        existingEntry.setId(1);
 
-        given(entryRepository.findByIdFetchAll(1)).willReturn(existingEntry);
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryRepository.deleteByIdAndUser(1, user)).willReturn(1);
 
         mockMvc.perform(post("/rest/entries/delete/{id}", 1).secure(true).with(csrf()))
                 .andExpect(status().isOk());
 
-        then(entryRepository).should(times(1)).delete(existingEntry);
+        then(entryRepository).should(times(1)).deleteByIdAndUser(1, user);
+        then(entryRepository).should(times(0)).existsById(any());
     }
 
     @Test
     @WithMockUser(username = "user", authorities = "user")
     public void delete_When_EntryNotFound() throws Exception {
         User user = new User(1, "user", "password");
-        Entry existingEntry = new Entry("existing", user);
-        existingEntry.setId(1);
 
-        given(entryRepository.findByIdFetchAll(1)).willReturn(null);
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryRepository.existsById(1)).willReturn(false);
 
         mockMvc.perform(post("/rest/entries/delete/{id}", 1).secure(true).with(csrf()))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").exists());
 
-        then(entryRepository).should(times(0)).delete(existingEntry);
+        then(entryRepository).should(times(1)).deleteByIdAndUser(1, user);
     }
 
     @Test
     @WithMockUser(username = "user", authorities = "user")
     public void delete_When_EntryBelongsToAnotherUser() throws Exception {
-        User anotherUser = new User(1, "another", "password");
-        Entry existingEntry = new Entry("existing", anotherUser);
-        existingEntry.setId(1);
+        User user = new User(1, "user", "password");
 
-        given(entryRepository.findByIdFetchAll(1)).willReturn(existingEntry);
+        //The entry exists but the delete statement has not found it for the current user
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryRepository.existsById(1)).willReturn(true);
 
         mockMvc.perform(post("/rest/entries/delete/{id}", 1).secure(true).with(csrf()))
                 .andExpect(status().isForbidden())
                 .andExpect(jsonPath("$.message").exists());
 
-        then(entryRepository).should(times(0)).delete(existingEntry);
+        then(entryRepository).should(times(1)).deleteByIdAndUser(1, user);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkMove_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        Group group = new Group(10, "group", user);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(groupRepository.findByIdFetchUser(10)).willReturn(group);
+        given(entryBulkService.move(user, Set.of(1, 2), group)).willReturn(true);
+
+        mockMvc.perform(post("/rest/entries/bulk/move").secure(true).with(csrf())
+                .param("ids", "1", "2")
+                .param("group", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(2)));
+
+        then(entryBulkService).should(times(1)).move(user, Set.of(1, 2), group);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkMove_To_EmptyGroup_OK() throws Exception {
+        User user = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryBulkService.move(user, Set.of(1), null)).willReturn(true);
+
+        mockMvc.perform(post("/rest/entries/bulk/move").secure(true).with(csrf())
+                .param("ids", "1")
+                .param("group", "empty"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(1)));
+
+        then(groupRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkMove_When_GroupBelongsToAnotherUser() throws Exception {
+        User user = new User(1, "user", "password");
+        User anotherUser = new User(2, "another", "password");
+        Group group = new Group(10, "group", anotherUser);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(groupRepository.findByIdFetchUser(10)).willReturn(group);
+
+        mockMvc.perform(post("/rest/entries/bulk/move").secure(true).with(csrf())
+                .param("ids", "1", "2")
+                .param("group", "10"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").exists());
+
+        then(entryBulkService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkSetExpiredDate_OK() throws Exception {
+        User user = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryBulkService.setExpiredDate(any(), any(), any())).willReturn(true);
+
+        mockMvc.perform(post("/rest/entries/bulk/expired-date").secure(true).with(csrf())
+                .param("ids", "1", "2")
+                .param("expired-date", "2030-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(2)));
+
+        //Without the expired-date the password validity is removed
+        mockMvc.perform(post("/rest/entries/bulk/expired-date").secure(true).with(csrf())
+                .param("ids", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(1)));
+
+        then(entryBulkService).should(times(1)).setExpiredDate(user, Set.of(1, 2), LocalDate.of(2030, 1, 31));
+        then(entryBulkService).should(times(1)).setExpiredDate(user, Set.of(1), null);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkSetExpiredDate_When_DateIsInvalid() throws Exception {
+        mockMvc.perform(post("/rest/entries/bulk/expired-date").secure(true).with(csrf())
+                .param("ids", "1")
+                .param("expired-date", "invalid"))
+                .andExpect(status().isBadRequest());
+
+        then(entryBulkService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkDelete_OK() throws Exception {
+        User user = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryBulkService.delete(user, Set.of(1, 2, 3))).willReturn(true);
+
+        mockMvc.perform(post("/rest/entries/bulk/delete").secure(true).with(csrf())
+                .param("ids", "1", "2", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(3)));
+
+        then(entryBulkService).should(times(0)).findMissingIds(any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkDelete_When_EntryNotFound() throws Exception {
+        User user = new User(1, "user", "password");
+
+        //Nothing is deleted, the entry 2 is not found or belongs to another user
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryBulkService.delete(user, Set.of(1, 2))).willReturn(false);
+        given(entryBulkService.findMissingIds(user, Set.of(1, 2))).willReturn(Set.of(2));
+
+        mockMvc.perform(post("/rest/entries/bulk/delete").secure(true).with(csrf())
+                .param("ids", "1", "2"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").exists());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkDelete_When_IdsAreEmpty() throws Exception {
+        mockMvc.perform(post("/rest/entries/bulk/delete").secure(true).with(csrf())
+                .param("ids", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+
+        then(entryBulkService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void bulkMove_When_TooManyIds() throws Exception {
+        String ids = IntStream.rangeClosed(1, 10001).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mockMvc.perform(post("/rest/entries/bulk/move").secure(true).with(csrf())
+                .param("ids", ids)
+                .param("group", "empty"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+
+        then(entryBulkService).shouldHaveNoInteractions();
     }
 
     @Test
@@ -307,4 +727,174 @@ public class EntryRestControllerTest {
         then(passwordEncryptor).shouldHaveNoInteractions();
     }
 
-}
\ No newline at end of file
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void getPasswords_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        Entry entry1 = new Entry("entry1", user);
+        entry1.setId(1);
+        entry1.setPassword("encrypted");
+        Entry entry2 = new Entry("entry2", user);
+        entry2.setId(2);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryRepository.findByIdsAndUser(Set.of(1, 2), user)).willReturn(List.of(entry1, entry2));
+        given(passwordEncryptor.decrypt("encrypted")).willReturn("password");
+
+        //The entry2 has an empty password. Should return an empty string for it
+        mockMvc.perform(get("/rest/entries/getpasswords").secure(true)
+                .param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1", is("password")))
+                .andExpect(jsonPath("$.2", is("")));
+
+        then(entryRepository).should(times(1)).findByIdsAndUser(Set.of(1, 2), user);
+        then(passwordEncryptor).should(times(1)).decrypt("encrypted");
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void getPasswords_When_EntryNotFoundOrBelongsToAnotherUser() throws Exception {
+        User user = new User(1, "user", "password");
+        Entry entry1 = new Entry("entry1", user);
+        entry1.setId(1);
+        entry1.setPassword("encrypted");
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryRepository.findByIdsAndUser(Set.of(1, 2), user)).willReturn(List.of(entry1));
+
+        mockMvc.perform(get("/rest/entries/getpasswords").secure(true)
+                .param("ids", "1,2"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").exists());
+
+        then(passwordEncryptor).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void getPasswords_When_IdsAreEmpty() throws Exception {
+        mockMvc.perform(get("/rest/entries/getpasswords").secure(true)
+                .param("ids", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+
+        then(entryRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void getPasswords_When_TooManyIds() throws Exception {
+        String ids = IntStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/rest/entries/getpasswords").secure(true)
+                .param("ids", ids))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+
+        then(entryRepository).shouldHaveNoInteractions();
+        then(passwordEncryptor).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void importCsv_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        EntryImportResult result = new EntryImportResult();
+        result.setImported(1);
+        result.getErrors().add(new EntryImportResult.RowError(2, "name: must not be blank"));
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryImportService.importCsv(eq(user), any())).willReturn(result);
+
+        mockMvc.perform(post("/rest/entries/import").secure(true).with(csrf())
+                .contentType("text/csv")
+                .content("name\nentry1\n\"\"\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].row", is(2)));
+
+        then(entryImportService).should(times(1)).importCsv(eq(user), any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void importJson_When_FileIsMalformed() throws Exception {
+        User user = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryImportService.importJson(eq(user), any())).willThrow(new JsonParseException(null, "malformed"));
+
+        mockMvc.perform(post("/rest/entries/import").secure(true).with(csrf())
+                .contentType("application/json")
+                .content("[{"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void export_Csv_OK() throws Exception {
+        User user = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(user);
+
+        mockMvc.perform(get("/rest/entries/export").secure(true)
+                .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", containsString("entries.csv")));
+
+        then(entryExportService).should(times(1)).export(eq(user), eq(EntryExportService.Format.CSV), any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void export_Ndjson_ByDefault() throws Exception {
+        User user = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(user);
+
+        mockMvc.perform(get("/rest/entries/export").secure(true))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"));
+
+        then(entryExportService).should(times(1)).export(eq(user), eq(EntryExportService.Format.NDJSON), any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void export_When_FormatIsUnknown() throws Exception {
+        User user = new User(1, "user", "password");
+
+        given(userRepository.findByName("user")).willReturn(user);
+
+        mockMvc.perform(get("/rest/entries/export").secure(true)
+                .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        then(entryExportService).should(times(0)).export(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void expiring_OK() throws Exception {
+        User user = new User(1, "user", "password");
+        LocalDate today = LocalDate.now();
+        ExpiringEntry expired = new ExpiringEntry(1, 1, "expired", today.minusDays(2));
+        ExpiringEntry expiring = new ExpiringEntry(2, 1, "expiring", today.plusDays(5));
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(entryRepository.findExpiringByUser(eq(user), any(), any())).willReturn(List.of(expired, expiring));
+
+        mockMvc.perform(get("/api/entries/expiring").secure(true))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expired", is(1)))
+                .andExpect(jsonPath("$.expiring", is(1)))
+                .andExpect(jsonPath("$.entries", hasSize(2)))
+                .andExpect(jsonPath("$.entries[0].daysLeft", is(-2)))
+                .andExpect(jsonPath("$.entries[1].name", is("expiring")))
+                .andExpect(jsonPath("$.entries[1].userId").doesNotExist());
+    }
+}
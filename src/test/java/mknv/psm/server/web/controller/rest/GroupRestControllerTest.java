@@ -6,7 +6,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -18,7 +19,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import mknv.psm.server.model.domain.Group;
 import mknv.psm.server.model.domain.User;
 import mknv.psm.server.model.repository.GroupRepository;
+import mknv.psm.server.model.service.VaultCache;
 import mknv.psm.server.model.repository.UserRepository;
+import mknv.psm.server.web.auth.AuthenticatedUser;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 
 /**
  *
@@ -36,6 +41,8 @@ public class GroupRestControllerTest {
     private UserRepository userRepository;
     @MockBean
     private GroupRepository groupRepository;
+    @Autowired
+    private VaultCache vaultCache;
 
     public GroupRestControllerTest() {
     }
@@ -55,4 +62,50 @@ public class GroupRestControllerTest {
                 .andExpect(jsonPath("$[0].name", is("group")))
                 .andExpect(jsonPath("$[0].user").doesNotExist());
     }
+
+    @Test
+    public void list_When_PrincipalIsAuthenticatedUser() throws Exception {
+        User user = new User(1, "user", null);
+        Group group = new Group("group", user);
+        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(1, "user"), null, AuthorityUtils.createAuthorityList("user"));
+
+        given(groupRepository.findByUser(user)).willReturn(List.of(group));
+
+        //Should take the user from the principal without querying the database
+        mockMvc.perform(get("/rest/groups").secure(true).with(authentication(token)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("group")));
+
+        then(userRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void list_When_NotModified() throws Exception {
+        User user = new User(1, "user", "password");
+        Group group = new Group("group", user);
+
+        given(userRepository.findByName("user")).willReturn(user);
+        given(groupRepository.findByUser(user)).willReturn(List.of(group));
+
+        String etag = mockMvc.perform(get("/rest/groups").secure(true))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Nothing has changed. Should return 304 without querying the groups.
+        mockMvc.perform(get("/rest/groups").secure(true).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        then(groupRepository).should(times(1)).findByUser(user);
+
+        //A group has been changed. Should return the groups again.
+        vaultCache.evict(1);
+        mockMvc.perform(get("/rest/groups").secure(true).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        then(groupRepository).should(times(2)).findByUser(user);
+    }
 }
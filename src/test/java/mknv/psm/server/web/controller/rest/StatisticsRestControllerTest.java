@@ -0,0 +1,67 @@
+package mknv.psm.server.web.controller.rest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import mknv.psm.server.model.domain.Role;
+
+/**
+ *
+ * @author mknv
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class StatisticsRestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @WithMockUser(username = "admin", authorities = "admin")
+    public void cache_OK() throws Exception {
+        mockMvc.perform(get("/api/statistics/cache").secure(true))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true))
+                .andExpect(jsonPath("$.secondLevelCache.hits").isNumber())
+                .andExpect(jsonPath("$.queryCache.misses").isNumber())
+                .andExpect(jsonPath("$.regions['" + Role.class.getName() + "'].puts").isNumber());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = "admin")
+    public void cache_When_StatisticsDisabled() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(false);
+        try {
+            mockMvc.perform(get("/api/statistics/cache").secure(true))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.enabled").value(false))
+                    .andExpect(jsonPath("$.secondLevelCache").doesNotExist())
+                    .andExpect(jsonPath("$.regions").doesNotExist());
+        } finally {
+            statistics.setStatisticsEnabled(true);
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = "user")
+    public void cache_When_UserIsNotAdmin() throws Exception {
+        mockMvc.perform(get("/api/statistics/cache").secure(true))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,87 @@
+--Statements to upgrade a database created by the previous release of schema.sql.
+--Every statement is applied once, in the order listed. The result matches schema.sql.
+
+--Trigram indexes for the substring search of entries
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS entries_name_trgm_idx ON entries USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS entries_login_trgm_idx ON entries USING gin (lower(login) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS entries_email_trgm_idx ON entries USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS entries_description_trgm_idx ON entries USING gin (lower(description) gin_trgm_ops);
+
+--Pooled sequences. The next nextval returns the last value + 50,
+--so the ids allocated by the pooled-lo optimizer never overlap the existing ones.
+
+ALTER SEQUENCE users_seq INCREMENT BY 50;
+ALTER SEQUENCE groups_seq INCREMENT BY 50;
+ALTER SEQUENCE entries_seq INCREMENT BY 50;
+
+--Keyset pagination of entries, sorted by code points
+
+CREATE INDEX IF NOT EXISTS entries_user_name_id_idx ON entries (user_id, (lower(name)) COLLATE "C", id);
+CREATE INDEX IF NOT EXISTS entries_user_group_name_id_idx ON entries (user_id, group_id, (lower(name)) COLLATE "C", id);
+
+--Foreign key and access path indexes
+
+CREATE INDEX IF NOT EXISTS users_name_idx ON users (name);
+CREATE INDEX IF NOT EXISTS users_roles_user_idx ON users_roles (user_id, role_id);
+CREATE INDEX IF NOT EXISTS entries_group_idx ON entries (group_id);
+
+--Partial index for the scan of expiring entries
+
+CREATE INDEX IF NOT EXISTS entries_expired_date_idx ON entries (expired_date, id) WHERE expired_date IS NOT NULL;
+
+--Change tracking of entries and groups
+
+ALTER TABLE groups ADD COLUMN updated_at timestamp with time zone DEFAULT now() NOT NULL;
+ALTER TABLE groups ADD COLUMN change_txid bigint DEFAULT txid_current() NOT NULL;
+ALTER TABLE entries ADD COLUMN updated_at timestamp with time zone DEFAULT now() NOT NULL;
+ALTER TABLE entries ADD COLUMN change_txid bigint DEFAULT txid_current() NOT NULL;
+
+CREATE TABLE tombstones (
+    table_name character varying(30) NOT NULL,
+    record_id integer NOT NULL,
+    user_id integer NOT NULL,
+    deleted_at timestamp with time zone DEFAULT now() NOT NULL,
+    change_txid bigint DEFAULT txid_current() NOT NULL
+);
+
+CREATE TABLE tombstones_horizon (
+    change_txid bigint NOT NULL
+);
+
+INSERT INTO tombstones_horizon (change_txid) VALUES (0);
+
+CREATE INDEX IF NOT EXISTS entries_user_change_idx ON entries (user_id, change_txid);
+CREATE INDEX IF NOT EXISTS groups_user_change_idx ON groups (user_id, change_txid);
+CREATE INDEX IF NOT EXISTS tombstones_user_change_idx ON tombstones (user_id, change_txid);
+CREATE INDEX IF NOT EXISTS tombstones_deleted_idx ON tombstones (deleted_at);
+
+CREATE FUNCTION set_updated_at() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := now();
+    NEW.change_txid := txid_current();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION add_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO tombstones (table_name, record_id, user_id, change_txid)
+        VALUES (TG_TABLE_NAME, OLD.id, OLD.user_id, txid_current());
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER entries_updated_at BEFORE INSERT OR UPDATE ON entries
+    FOR EACH ROW EXECUTE PROCEDURE set_updated_at();
+
+CREATE TRIGGER groups_updated_at BEFORE INSERT OR UPDATE ON groups
+    FOR EACH ROW EXECUTE PROCEDURE set_updated_at();
+
+CREATE TRIGGER entries_tombstone AFTER DELETE ON entries
+    FOR EACH ROW EXECUTE PROCEDURE add_tombstone();
+
+CREATE TRIGGER groups_tombstone AFTER DELETE ON groups
+    FOR EACH ROW EXECUTE PROCEDURE add_tombstone();